@@ -0,0 +1,24 @@
+package com.simo.learnspringboot.learnspringboot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    // Kill switch: when false /api/auth/** is never shed.
+    private boolean enabled = true;
+    private int initialLimit = 20;
+    // Never shed below this many concurrent requests, however slow things get.
+    private int minLimit = 2;
+    private int maxLimit = 200;
+    // A request slower than this (or answered 503) is taken as a sign of overload and shrinks the limit.
+    private Duration latencyThreshold = Duration.ofSeconds(1);
+    // The limit is multiplied by this on overload, and grows by one per fast request while it is being used.
+    private double backoffRatio = 0.9;
+    // Sent as Retry-After with the 503.
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
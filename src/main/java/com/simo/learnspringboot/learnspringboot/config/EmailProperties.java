@@ -0,0 +1,39 @@
+package com.simo.learnspringboot.learnspringboot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Locale;
+
+@Data
+@ConfigurationProperties(prefix = "app.mail")
+public class EmailProperties {
+
+    // Public address of this application, used for the links in verification and reset emails.
+    private String baseUrl = "http://localhost:8080";
+    // Language of the emails; the outbox does not record the recipient's locale.
+    private Locale locale = Locale.ENGLISH;
+    private final Outbox outbox = new Outbox();
+    private final Smtp smtp = new Smtp();
+
+    @Data
+    public static class Outbox {
+        // How long the dispatcher sleeps once the outbox is drained.
+        private Duration pollInterval = Duration.ofSeconds(1);
+        private int batchSize = 50;
+        // Emails of one batch sent in parallel, i.e. at most this many SMTP sessions at a time.
+        private int concurrency = 4;
+        // Deliveries per email, the first one included, before it goes to the dead-letter table.
+        private int maxAttempts = 8;
+        // Delay before the first retry; doubles with every further failure, up to maxBackoff, randomized by half.
+        private Duration initialBackoff = Duration.ofSeconds(30);
+        private Duration maxBackoff = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Smtp {
+        // Pooled SMTP sessions unused for this long are closed before the server drops them on its own.
+        private Duration idleTimeout = Duration.ofSeconds(30);
+    }
+}
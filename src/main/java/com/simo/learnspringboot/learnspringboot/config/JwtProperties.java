@@ -0,0 +1,45 @@
+package com.simo.learnspringboot.learnspringboot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.jwt")
+public class JwtProperties {
+
+    // Access tokens are kept short so the request path can trust them without re-checking the database.
+    private Duration accessTokenTtl = Duration.ofMinutes(15);
+    private Duration refreshTokenTtl = Duration.ofDays(14);
+
+    // When true, the authentication filter trusts the role and verified claims of the token
+    // instead of loading the user from the database on every request.
+    private boolean statelessPrincipal = false;
+
+    private final Cache cache = new Cache();
+    private final Revocation revocation = new Revocation();
+    private final Keys keys = new Keys();
+
+    @Data
+    public static class Cache {
+        // Kill switch for the verified-token cache in front of the authentication filter.
+        private boolean enabled = true;
+        private long maxSize = 10_000;
+    }
+
+    @Data
+    public static class Revocation {
+        // How often entries whose tokens have expired anyway are dropped from the revocation list.
+        private Duration purgeInterval = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Keys {
+        // How often a new ES256 key takes over signing. Each key is published one interval before it signs,
+        // so verifiers caching the key set for less than this never miss a key.
+        private Duration rotationInterval = Duration.ofDays(1);
+        // Cache-Control max-age of /api/auth/keys.
+        private Duration jwksMaxAge = Duration.ofMinutes(5);
+    }
+}
@@ -0,0 +1,15 @@
+package com.simo.learnspringboot.learnspringboot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.one-time-tokens")
+public class OneTimeTokenProperties {
+
+    private Duration passwordResetTtl = Duration.ofMinutes(20);
+    // There is no resend endpoint yet, so keep this generous.
+    private Duration emailVerificationTtl = Duration.ofDays(7);
+}
@@ -0,0 +1,36 @@
+package com.simo.learnspringboot.learnspringboot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.password-hashing")
+public class PasswordHashingProperties {
+
+    // BCrypt is pure CPU: more threads than cores only adds context switches.
+    private int threads = Runtime.getRuntime().availableProcessors();
+    // Requests waiting for a hashing thread; beyond this they are turned away with 503 instead of piling up.
+    private int queueCapacity = 64;
+    // Sent as Retry-After with the 503.
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    private final Calibration calibration = new Calibration();
+
+    @Data
+    public static class Calibration {
+        // When false, new hashes use the fixed strength below and nothing is measured at startup.
+        private boolean enabled = true;
+        // Slowest acceptable single hash on this machine.
+        private Duration targetLatency = Duration.ofMillis(250);
+        // Logins per second one core must still handle; tightens the budget to 1s / this when stricter.
+        private double minThroughputPerCore = 4;
+        // Never hash weaker than this, however slow the machine (10 is BCrypt's own default).
+        private int minStrength = 10;
+        private int maxStrength = 14;
+        // Timed hashes per candidate strength; the median counts.
+        private int samples = 3;
+        private int strength = 10;
+    }
+}
@@ -0,0 +1,40 @@
+package com.simo.learnspringboot.learnspringboot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    // Kill switch: when false no request is limited.
+    private boolean enabled = true;
+    // Buckets that have refilled completely are dropped this often; a full bucket behaves exactly like none.
+    private Duration evictionInterval = Duration.ofMinutes(1);
+    // Limited endpoints by name (the name tags the metric); only POSTs to the path are counted.
+    private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+    // Bodies of endpoints with a per-email limit are buffered to find the email; larger ones are refused with 413.
+    private DataSize maxBodySize = DataSize.ofKilobytes(8);
+
+    @Data
+    public static class Endpoint {
+        private String path;
+        // Either limit may be left out.
+        private Limit perIp;
+        // Keyed by the "email" field of the JSON body, so spreading a credential-stuffing run over IPs doesn't help.
+        private Limit perEmail;
+    }
+
+    @Data
+    public static class Limit {
+        // Requests allowed in a burst.
+        private int capacity;
+        // One more request is allowed every period, up to the capacity.
+        private Duration refillPeriod;
+    }
+}
@@ -0,0 +1,32 @@
+package com.simo.learnspringboot.learnspringboot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "app.read-replicas")
+public class ReadReplicaProperties {
+
+    // Replicas of spring.datasource; with none configured everything uses the primary as before.
+    private List<Instance> instances = new ArrayList<>();
+    // Upper bound of the replication lag: a user written less than this long ago is read from the primary.
+    private Duration maxLag = Duration.ofSeconds(5);
+    // Connections per replica.
+    private int poolSize = 10;
+
+    /** Whether reads are routed to replicas at all; without them the primary is the only copy there is. */
+    public boolean isEnabled() {
+        return !instances.isEmpty();
+    }
+
+    @Data
+    public static class Instance {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
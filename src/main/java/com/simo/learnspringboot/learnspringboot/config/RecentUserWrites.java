@@ -0,0 +1,34 @@
+package com.simo.learnspringboot.learnspringboot.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.simo.learnspringboot.learnspringboot.model.UserChangedEvent;
+import org.springframework.context.event.EventListener;
+
+import java.time.Duration;
+
+/**
+ * Emails of the users this node inserted, updated or deleted within the replicas' maximum lag. Recorded when the
+ * change is flushed, i.e. before it commits, so the window covers the commit as well.
+ * <p>
+ * Only this JVM's own writes are seen: with several nodes, a user verified on one node may still be read unverified
+ * from a replica on another. The auth paths cover that by re-reading from the primary (see {@link
+ * com.simo.learnspringboot.learnspringboot.repository.ReadConsistency#onPrimary}); other readers get replica lag.
+ */
+public class RecentUserWrites {
+
+    private final Cache<String, Boolean> writes;
+
+    public RecentUserWrites(Duration maxLag) {
+        this.writes = Caffeine.newBuilder().expireAfterWrite(maxLag).build();
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        writes.put(event.email(), Boolean.TRUE);
+    }
+
+    public boolean contains(String email) {
+        return writes.getIfPresent(email) != null;
+    }
+}
@@ -0,0 +1,61 @@
+package com.simo.learnspringboot.learnspringboot.config;
+
+import com.simo.learnspringboot.learnspringboot.repository.ReadConsistency;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to the replicas, round robin, and everything else to the primary. A read-only
+ * lookup of a user in {@link RecentUserWrites} also goes to the primary, since the replicas may not have the write
+ * yet, as does any lookup inside {@link ReadConsistency#onPrimary}. The routing key is read when a connection is
+ * obtained, so this must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the
+ * transaction is only marked read-only after it began.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final String PRIMARY = "primary";
+
+    private final List<HikariDataSource> replicas;
+    private final RecentUserWrites recentUserWrites;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas,
+                                    RecentUserWrites recentUserWrites) {
+        this.replicas = replicas;
+        this.recentUserWrites = recentUserWrites;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReadConsistency.primaryRequired()) {
+            return PRIMARY;
+        }
+        String user = ReadConsistency.currentUser();
+        if (user != null && recentUserWrites.contains(user)) {
+            return PRIMARY;
+        }
+        return Math.floorMod(next.getAndIncrement(), replicas.size());
+    }
+
+    // The primary is a bean of its own and closed by the context.
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,23 @@
+package com.simo.learnspringboot.learnspringboot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "app.second-level-cache")
+public class SecondLevelCacheProperties {
+
+    // Hibernate cache regions by name, e.g. "users" and "users-by-email"; regions not listed here are unbounded.
+    private Map<String, Region> regions = new LinkedHashMap<>();
+
+    @Data
+    public static class Region {
+        private long maxSize = 10_000;
+        // Writes through Hibernate update the region; the TTL only bounds staleness for changes made outside it.
+        private Duration ttl = Duration.ofHours(1);
+    }
+}
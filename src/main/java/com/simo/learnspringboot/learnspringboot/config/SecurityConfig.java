@@ -1,7 +1,10 @@
 package com.simo.learnspringboot.learnspringboot.config;
 
+import com.simo.learnspringboot.learnspringboot.filter.ConcurrencyLimitFilter;
 import com.simo.learnspringboot.learnspringboot.filter.JwtAuthenticationFilter;
+import com.simo.learnspringboot.learnspringboot.filter.RateLimitFilter;
 import com.simo.learnspringboot.learnspringboot.security.JwtAuthenticationEntryPoint;
+import com.simo.learnspringboot.learnspringboot.security.PasswordHashCalibration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -11,6 +14,7 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -19,6 +23,7 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.springframework.security.config.Customizer.withDefaults; // <--- IMPORT THIS
 
@@ -27,12 +32,18 @@ import static org.springframework.security.config.Customizer.withDefaults; // <-
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtFilter;
+    private final RateLimitFilter rateLimitFilter;
+    private final ConcurrencyLimitFilter concurrencyLimitFilter;
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
 
     public SecurityConfig(JwtAuthenticationFilter jwtFilter,
+                          RateLimitFilter rateLimitFilter,
+                          ConcurrencyLimitFilter concurrencyLimitFilter,
                           JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint
     ) {
         this.jwtFilter = jwtFilter;
+        this.rateLimitFilter = rateLimitFilter;
+        this.concurrencyLimitFilter = concurrencyLimitFilter;
         this.jwtAuthenticationEntryPoint = jwtAuthenticationEntryPoint;
     }
 
@@ -45,12 +56,18 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .exceptionHandling(ex -> ex
                         .authenticationEntryPoint(jwtAuthenticationEntryPoint)
                 )
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+                // Throttled requests are turned away before any token or body is looked at.
+                .addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class)
+                // Registered after the rate limit filter, so it runs after it: only requests that passed count.
+                .addFilterBefore(concurrencyLimitFilter, JwtAuthenticationFilter.class)
                 .build();
     }
 
@@ -80,8 +97,19 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordHashCalibration passwordHashCalibration(PasswordHashingProperties properties) {
+        return PasswordHashCalibration.calibrate(properties.getCalibration());
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder(PasswordHashCalibration calibration) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(calibration.strength());
+        // New hashes are stored as {bcrypt}...; a weaker or unprefixed hash is replaced on the next successful
+        // login (see CustomUserDetailsService#updatePassword).
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        // Hashes stored before the prefix was introduced are plain BCrypt.
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
 
     @Bean
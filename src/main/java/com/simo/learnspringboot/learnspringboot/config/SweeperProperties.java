@@ -0,0 +1,21 @@
+package com.simo.learnspringboot.learnspringboot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.sweeper")
+public class SweeperProperties {
+
+    private boolean enabled = true;
+    // Time between the end of one sweep and the start of the next.
+    private Duration interval = Duration.ofMinutes(10);
+    // Rows deleted per statement and per transaction, which bounds how long a sweep holds its locks.
+    private int chunkSize = 500;
+    // Sleep between two full chunks, leaving the database to login traffic while a backlog is worked off.
+    private Duration pause = Duration.ofMillis(100);
+    // Accounts still unverified this long after registering are deleted.
+    private Duration unverifiedAccountTtl = Duration.ofDays(30);
+}
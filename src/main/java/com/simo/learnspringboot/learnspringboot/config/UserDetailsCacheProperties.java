@@ -0,0 +1,18 @@
+package com.simo.learnspringboot.learnspringboot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.user-details-cache")
+public class UserDetailsCacheProperties {
+
+    // Kill switch: when false every login and fallback lookup goes to the database.
+    private boolean enabled = true;
+    // Entries are evicted whenever the user changes; the TTL only bounds staleness for changes that bypass JPA.
+    private Duration ttl = Duration.ofMinutes(5);
+    // One entry is a few hundred bytes (email, hash, one authority).
+    private long maxSize = 10_000;
+}
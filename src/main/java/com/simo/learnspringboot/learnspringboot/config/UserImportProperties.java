@@ -0,0 +1,14 @@
+package com.simo.learnspringboot.learnspringboot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "app.user-import")
+public class UserImportProperties {
+
+    // Rows checked for duplicates, hashed and inserted together in one transaction.
+    private int chunkSize = 500;
+    // Threads hashing the passwords of a chunk; separate from the login pool so an import cannot starve its queue.
+    private int hashingThreads = Runtime.getRuntime().availableProcessors();
+}
@@ -0,0 +1,32 @@
+package com.simo.learnspringboot.learnspringboot.controller;
+
+import com.simo.learnspringboot.learnspringboot.dto.DeadLetterEmailDto;
+import com.simo.learnspringboot.learnspringboot.service.EmailDeadLetters;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/admin/emails")
+public class AdminEmailController {
+
+    private final EmailDeadLetters emailDeadLetters;
+
+    public AdminEmailController(EmailDeadLetters emailDeadLetters) {
+        this.emailDeadLetters = emailDeadLetters;
+    }
+
+    @GetMapping("/dead-letters")
+    public List<DeadLetterEmailDto> deadLetters(@RequestParam(defaultValue = "0") int page,
+                                                @RequestParam(defaultValue = "50") int size) {
+        return emailDeadLetters.list(page, size).stream().map(DeadLetterEmailDto::from).toList();
+    }
+
+    @PostMapping("/dead-letters/{id}/replay")
+    public Map<String, String> replay(@PathVariable UUID id) {
+        String message = emailDeadLetters.replay(id);
+        return Map.of("message", message);
+    }
+}
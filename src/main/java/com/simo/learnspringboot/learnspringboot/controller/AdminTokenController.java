@@ -0,0 +1,32 @@
+package com.simo.learnspringboot.learnspringboot.controller;
+
+import com.simo.learnspringboot.learnspringboot.dto.RevokeTokenRequestDto;
+import com.simo.learnspringboot.learnspringboot.dto.RevokeUserTokensRequestDto;
+import com.simo.learnspringboot.learnspringboot.service.TokenRevocationService;
+import jakarta.validation.Valid;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/tokens")
+public class AdminTokenController {
+
+    private final TokenRevocationService tokenRevocationService;
+
+    public AdminTokenController(TokenRevocationService tokenRevocationService) {
+        this.tokenRevocationService = tokenRevocationService;
+    }
+
+    @PostMapping("/revoke")
+    public Map<String, String> revokeToken(@Valid @RequestBody RevokeTokenRequestDto request) {
+        String message = tokenRevocationService.revokeToken(request.token());
+        return Map.of("message", message);
+    }
+
+    @PostMapping("/revoke-user")
+    public Map<String, String> revokeUserTokens(@Valid @RequestBody RevokeUserTokensRequestDto request) {
+        String message = tokenRevocationService.revokeAllForUser(request.email());
+        return Map.of("message", message);
+    }
+}
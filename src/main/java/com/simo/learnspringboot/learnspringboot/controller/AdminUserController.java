@@ -0,0 +1,34 @@
+package com.simo.learnspringboot.learnspringboot.controller;
+
+import com.simo.learnspringboot.learnspringboot.dto.UserImportReportDto;
+import com.simo.learnspringboot.learnspringboot.service.UserImportService;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/admin/users")
+public class AdminUserController {
+
+    private static final String TEXT_CSV = "text/csv";
+
+    private final UserImportService userImportService;
+
+    public AdminUserController(UserImportService userImportService) {
+        this.userImportService = userImportService;
+    }
+
+    // The body is read as a stream, one chunk of rows at a time, so its size is not bounded by memory.
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public UserImportReportDto importNdjson(InputStream body) {
+        return userImportService.importUsers(body, UserImportService.Format.NDJSON);
+    }
+
+    @PostMapping(value = "/import", consumes = TEXT_CSV)
+    public UserImportReportDto importCsv(InputStream body) {
+        return userImportService.importUsers(body, UserImportService.Format.CSV);
+    }
+}
@@ -1,33 +1,43 @@
 package com.simo.learnspringboot.learnspringboot.controller;
 
 import com.simo.learnspringboot.learnspringboot.dto.*;
+import com.simo.learnspringboot.learnspringboot.security.PasswordHashingExecutor;
 import com.simo.learnspringboot.learnspringboot.service.AuthService;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
 
     private final AuthService authService;
+    private final PasswordHashingExecutor passwordHashingExecutor;
 
-    public AuthController(AuthService authService) {
+    public AuthController(AuthService authService, PasswordHashingExecutor passwordHashingExecutor) {
         this.authService = authService;
+        this.passwordHashingExecutor = passwordHashingExecutor;
     }
 
+    // Register, login and reset hash or verify a password: they run on the hashing pool, not the request thread.
+
     @PostMapping("/register")
-    public AuthResponseDto register(@Valid @RequestBody RegisterRequestDto request) {
-        return authService.register(request);
+    public CompletableFuture<AuthResponseDto> register(@Valid @RequestBody RegisterRequestDto request) {
+        return passwordHashingExecutor.supply(() -> authService.register(request));
     }
 
     @PostMapping("/login")
-    public AuthResponseDto login(@RequestBody LoginRequestDto request) {
-        return authService.login(request);
+    public CompletableFuture<AuthResponseDto> login(@RequestBody LoginRequestDto request) {
+        return passwordHashingExecutor.supply(() -> authService.login(request));
     }
 
+    @PostMapping("/refresh")
+    public AuthResponseDto refresh(@Valid @RequestBody RefreshTokenRequestDto request) {
+        return authService.refresh(request);
+    }
 
     @PostMapping("/forget-password")
     public Map<String, String> forgetPassword(@Valid @RequestBody ForgetPasswordRequestDto request) {
@@ -36,9 +46,8 @@ public class AuthController {
     }
 
     @PostMapping("/reset-password")
-    public Map<String, String> resetPassword(@Valid @RequestBody ResetPasswordRequestDto request) {
-        String message = authService.resetPassword(request);
-        return Map.of("message", message);
+    public CompletableFuture<Map<String, String>> resetPassword(@Valid @RequestBody ResetPasswordRequestDto request) {
+        return passwordHashingExecutor.supply(() -> Map.of("message", authService.resetPassword(request)));
     }
 
 
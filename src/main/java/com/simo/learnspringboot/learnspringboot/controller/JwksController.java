@@ -0,0 +1,34 @@
+package com.simo.learnspringboot.learnspringboot.controller;
+
+import com.simo.learnspringboot.learnspringboot.config.JwtProperties;
+import com.simo.learnspringboot.learnspringboot.security.JwtKeyRing;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Serves the public signing keys as a JWK Set so other services can verify our access tokens themselves.
+ */
+@RestController
+@RequestMapping("/api/auth")
+public class JwksController {
+
+    private final JwtKeyRing jwtKeyRing;
+    private final CacheControl cacheControl;
+
+    public JwksController(JwtKeyRing jwtKeyRing, JwtProperties jwtProperties) {
+        this.jwtKeyRing = jwtKeyRing;
+        this.cacheControl = CacheControl.maxAge(jwtProperties.getKeys().getJwksMaxAge()).cachePublic();
+    }
+
+    @GetMapping("/keys")
+    public ResponseEntity<Map<String, Object>> keys() {
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl)
+                .body(jwtKeyRing.jwks());
+    }
+}
@@ -4,5 +4,10 @@ public record AuthResponseDto(
         String token,
         String email,
         String role,
-        String message
-) {}
+        String message,
+        String refreshToken
+) {
+    public AuthResponseDto(String token, String email, String role, String message) {
+        this(token, email, role, message, null);
+    }
+}
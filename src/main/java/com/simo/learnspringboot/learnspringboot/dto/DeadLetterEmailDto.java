@@ -0,0 +1,23 @@
+package com.simo.learnspringboot.learnspringboot.dto;
+
+import com.simo.learnspringboot.learnspringboot.model.DeadLetterEmail;
+import com.simo.learnspringboot.learnspringboot.model.EmailType;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record DeadLetterEmailDto(
+        UUID id,
+        EmailType type,
+        String recipient,
+        int attempts,
+        boolean permanent,
+        String lastError,
+        Instant createdAt,
+        Instant failedAt
+) {
+    public static DeadLetterEmailDto from(DeadLetterEmail email) {
+        return new DeadLetterEmailDto(email.getId(), email.getType(), email.getRecipient(), email.getAttempts(),
+                email.isPermanent(), email.getLastError(), email.getCreatedAt(), email.getFailedAt());
+    }
+}
@@ -0,0 +1,9 @@
+package com.simo.learnspringboot.learnspringboot.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshTokenRequestDto(
+        @NotBlank(message = "Refresh token is required")
+        String refreshToken
+) {
+}
@@ -0,0 +1,9 @@
+package com.simo.learnspringboot.learnspringboot.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RevokeTokenRequestDto(
+        @NotBlank(message = "Token is required")
+        String token
+) {
+}
@@ -0,0 +1,11 @@
+package com.simo.learnspringboot.learnspringboot.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+
+public record RevokeUserTokensRequestDto(
+        @NotBlank(message = "Email is required")
+        @Email(message = "Email should be valid")
+        String email
+) {
+}
@@ -0,0 +1,15 @@
+package com.simo.learnspringboot.learnspringboot.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import: rows that failed are listed with their line number and left out, the rest are imported.
+ */
+public record UserImportReportDto(
+        int rows,
+        int imported,
+        List<RowError> errors
+) {
+    public record RowError(int line, String email, List<String> messages) {
+    }
+}
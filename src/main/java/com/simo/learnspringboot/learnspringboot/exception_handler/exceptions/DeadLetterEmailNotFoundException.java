@@ -0,0 +1,7 @@
+package com.simo.learnspringboot.learnspringboot.exception_handler.exceptions;
+
+public class DeadLetterEmailNotFoundException extends RuntimeException {
+    public DeadLetterEmailNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.simo.learnspringboot.learnspringboot.exception_handler.exceptions;
+
+public class InvalidImportException extends RuntimeException {
+    public InvalidImportException(String message) {
+        super(message);
+    }
+}
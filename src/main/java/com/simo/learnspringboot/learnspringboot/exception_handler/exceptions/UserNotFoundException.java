@@ -0,0 +1,7 @@
+package com.simo.learnspringboot.learnspringboot.exception_handler.exceptions;
+
+public class UserNotFoundException extends RuntimeException {
+    public UserNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,149 @@
+package com.simo.learnspringboot.learnspringboot.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simo.learnspringboot.learnspringboot.config.ConcurrencyLimitProperties;
+import com.simo.learnspringboot.learnspringboot.security.ConcurrencyLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sheds {@code /api/auth/**} requests with 503 once more are in flight than the {@link ConcurrencyLimiter} allows,
+ * except for the JWKS at {@code /api/auth/keys}.
+ * Async requests (register, login, reset) stay in flight until their response is complete, not just until the
+ * request thread is handed back.
+ */
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String AUTH_PATH = "/api/auth/";
+    // Served from memory and needed by everyone validating tokens, so it must not be shed along with logins.
+    private static final String KEYS_PATH = "/api/auth/keys";
+
+    private final boolean enabled;
+    private final ConcurrencyLimiter limiter;
+    private final Counter rejections;
+    private final long retryAfterSeconds;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.limiter = new ConcurrencyLimiter(properties.getInitialLimit(), properties.getMinLimit(),
+                properties.getMaxLimit(), properties.getLatencyThreshold(), properties.getBackoffRatio());
+        this.retryAfterSeconds = Math.max(1, properties.getRetryAfter().toSeconds());
+        Gauge.builder("auth.concurrency.limit", limiter, ConcurrencyLimiter::limit).register(meterRegistry);
+        Gauge.builder("auth.concurrency.in-flight", limiter, ConcurrencyLimiter::inFlight).register(meterRegistry);
+        this.rejections = Counter.builder("auth.concurrency.rejected").register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith(AUTH_PATH) || path.equals(KEYS_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        if (!limiter.tryAcquire()) {
+            rejections.increment();
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnCompletion(response, start, released));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                release(start, released, response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value());
+            }
+        }
+    }
+
+    public ConcurrencyLimiter limiter() {
+        return limiter;
+    }
+
+    private void release(long start, AtomicBoolean released, boolean failed) {
+        // An async request can both time out and complete; only the first counts.
+        if (released.compareAndSet(false, true)) {
+            limiter.release(System.nanoTime() - start, failed);
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now().toString());
+        body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        body.put("error", "Service Unavailable");
+        body.put("details", "Too many authentication requests, please retry shortly.");
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(objectMapper.writeValueAsBytes(body));
+    }
+
+    private class ReleaseOnCompletion implements AsyncListener {
+
+        private final HttpServletResponse response;
+        private final long start;
+        private final AtomicBoolean released;
+
+        ReleaseOnCompletion(HttpServletResponse response, long start, AtomicBoolean released) {
+            this.response = response;
+            this.start = start;
+            this.released = released;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(start, released, response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(start, released, true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(start, released, true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Still the same request; it stays in flight.
+        }
+    }
+}
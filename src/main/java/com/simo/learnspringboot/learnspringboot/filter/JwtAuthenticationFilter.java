@@ -1,27 +1,44 @@
 package com.simo.learnspringboot.learnspringboot.filter;
 
+import com.simo.learnspringboot.learnspringboot.config.JwtProperties;
 import com.simo.learnspringboot.learnspringboot.security.CustomUserDetailsService;
 import com.simo.learnspringboot.learnspringboot.security.JwtUtil;
+import com.simo.learnspringboot.learnspringboot.security.TokenClaims;
+import com.simo.learnspringboot.learnspringboot.security.TokenRevocationList;
+import com.simo.learnspringboot.learnspringboot.security.VerifiedTokenCache;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationList revocationList;
+    private final JwtProperties jwtProperties;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil,
+                                   CustomUserDetailsService userDetailsService,
+                                   VerifiedTokenCache verifiedTokenCache,
+                                   TokenRevocationList revocationList,
+                                   JwtProperties jwtProperties) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.revocationList = revocationList;
+        this.jwtProperties = jwtProperties;
     }
 
     @Override
@@ -34,19 +51,36 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7);
 
-            if (jwtUtil.validateToken(token)) {
-                String username = jwtUtil.extractUsername(token);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            // One parse, one signature check: the claims come back already verified.
+            // Tokens seen before skip the check entirely until their exp.
+            Optional<TokenClaims> claims = verifiedTokenCache.getOrVerify(token, jwtUtil::verifyToken);
+            // Revocation is checked on every request, cached or not.
+            if (claims.isPresent() && !revocationList.isRevoked(claims.get())) {
+                UserDetails userDetails = resolveUser(claims.get());
 
-                UsernamePasswordAuthenticationToken auth =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities()
-                        );
+                if (userDetails != null) {
+                    UsernamePasswordAuthenticationToken auth =
+                            new UsernamePasswordAuthenticationToken(
+                                    userDetails, null, userDetails.getAuthorities()
+                            );
 
-                SecurityContextHolder.getContext().setAuthentication(auth);
+                    SecurityContextHolder.getContext().setAuthentication(auth);
+                }
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails resolveUser(TokenClaims claims) {
+        // Stateless mode: the signed claims are the source of truth, no database round trip.
+        // Tokens minted without role/verified claims still fall back to a lookup.
+        if (jwtProperties.isStatelessPrincipal() && claims.hasPrincipalClaims()) {
+            if (!claims.verified()) {
+                return null;
+            }
+            return new User(claims.subject(), "", List.of(new SimpleGrantedAuthority(claims.role())));
+        }
+        return userDetailsService.loadUserByUsername(claims.subject());
+    }
 }
@@ -0,0 +1,261 @@
+package com.simo.learnspringboot.learnspringboot.filter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simo.learnspringboot.learnspringboot.config.RateLimitProperties;
+import com.simo.learnspringboot.learnspringboot.security.RateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Rate limits the unauthenticated endpoints that cost a BCrypt hash or an email (login, register, forget-password)
+ * per client IP and per target email, see {@link RateLimiter}. Refused requests get 429 with Retry-After before
+ * anything is parsed or hashed. Every other request only pays a method check and a map lookup. The body is buffered
+ * to find the email, so it is capped at {@code app.rate-limit.max-body-size}; larger bodies get 413.
+ * <p>
+ * The client IP is {@link HttpServletRequest#getRemoteAddr()}; behind a proxy, set
+ * {@code server.forward-headers-strategy} so it is the client's rather than the proxy's.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final boolean enabled;
+    private final int maxBodySize;
+    private final Map<String, LimitedEndpoint> endpointsByPath = new HashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Clock.systemUTC());
+    }
+
+    RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry, Clock clock) {
+        this.enabled = properties.isEnabled();
+        this.maxBodySize = Math.toIntExact(properties.getMaxBodySize().toBytes());
+        properties.getEndpoints().forEach((name, endpoint) -> endpointsByPath.put(endpoint.getPath(), new LimitedEndpoint(
+                limiter(endpoint.getPerIp(), clock),
+                limiter(endpoint.getPerEmail(), clock),
+                rejections(meterRegistry, name, "ip"),
+                rejections(meterRegistry, name, "email"))));
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !"POST".equals(request.getMethod()) || endpointFor(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        LimitedEndpoint endpoint = endpointFor(request);
+
+        if (endpoint.perIp() != null) {
+            long wait = endpoint.perIp().tryAcquire(request.getRemoteAddr());
+            if (wait > 0) {
+                endpoint.ipRejections().increment();
+                reject(response, wait);
+                return;
+            }
+        }
+
+        if (endpoint.perEmail() != null) {
+            // The controller still needs the body, so it is read once here and replayed. It is held in memory, so
+            // its size is capped, whether or not the client declared it up front.
+            if (request.getContentLengthLong() > maxBodySize) {
+                rejectTooLarge(response);
+                return;
+            }
+            byte[] body = request.getInputStream().readNBytes(maxBodySize + 1);
+            if (body.length > maxBodySize) {
+                rejectTooLarge(response);
+                return;
+            }
+            request = new CachedBodyRequest(request, body);
+            String email = emailOf(body);
+            if (email != null) {
+                long wait = endpoint.perEmail().tryAcquire(email);
+                if (wait > 0) {
+                    endpoint.emailRejections().increment();
+                    reject(response, wait);
+                    return;
+                }
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.eviction-interval:PT1M}")
+    public void evictIdle() {
+        for (LimitedEndpoint endpoint : endpointsByPath.values()) {
+            if (endpoint.perIp() != null) {
+                endpoint.perIp().evictIdle();
+            }
+            if (endpoint.perEmail() != null) {
+                endpoint.perEmail().evictIdle();
+            }
+        }
+    }
+
+    private LimitedEndpoint endpointFor(HttpServletRequest request) {
+        return endpointsByPath.get(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    private void reject(HttpServletResponse response, long waitMillis) throws IOException {
+        long retryAfterSeconds = Math.max(1, (waitMillis + 999) / 1000);
+
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        writeError(response, HttpStatus.TOO_MANY_REQUESTS,
+                "Too many attempts, please retry in " + retryAfterSeconds + "s.");
+    }
+
+    private void rejectTooLarge(HttpServletResponse response) throws IOException {
+        writeError(response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body exceeds " + maxBodySize + " bytes.");
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String details) throws IOException {
+        Map<String, Object> body = new HashMap<>();
+        body.put("timestamp", LocalDateTime.now().toString());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("details", details);
+
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(objectMapper.writeValueAsBytes(body));
+    }
+
+    // Reads just the top-level "email" string; a body that is not JSON is left for the controller to reject.
+    static String emailOf(byte[] body) {
+        try (JsonParser parser = JSON.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                token = parser.nextToken();
+                if ("email".equals(field) && token == JsonToken.VALUE_STRING) {
+                    return parser.getText().trim().toLowerCase(Locale.ROOT);
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static RateLimiter limiter(RateLimitProperties.Limit limit, Clock clock) {
+        return limit == null ? null : new RateLimiter(limit.getCapacity(), limit.getRefillPeriod(), clock);
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String endpoint, String key) {
+        return Counter.builder("auth.rate-limit.rejected")
+                .tag("endpoint", endpoint)
+                .tag("key", key)
+                .register(meterRegistry);
+    }
+
+    private record LimitedEndpoint(RateLimiter perIp, RateLimiter perEmail,
+                                   Counter ipRejections, Counter emailRejections) {
+    }
+
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The whole body is already in memory: it is available at once, and then it is all read.
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
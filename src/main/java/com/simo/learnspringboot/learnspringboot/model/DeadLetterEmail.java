@@ -0,0 +1,47 @@
+package com.simo.learnspringboot.learnspringboot.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * An outbox email that was given up on: the SMTP server refused it for good, or it kept failing until the
+ * retries ran out. Kept until an admin replays it into the outbox. The token it linked to is not kept; a replay
+ * sends a fresh one.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "email_dead_letter", indexes = {
+        @Index(name = "ix_email_dead_letter_failed_at", columnList = "failedAt")
+})
+public class DeadLetterEmail {
+
+    // The id the email had in the outbox, so log lines of both can be matched up.
+    @Id
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private EmailType type;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant failedAt;
+
+    private int attempts;
+
+    // False when the retries ran out on failures that might have cleared up later.
+    private boolean permanent;
+
+    @Column(length = 1000)
+    private String lastError;
+}
@@ -0,0 +1,6 @@
+package com.simo.learnspringboot.learnspringboot.model;
+
+public enum EmailType {
+    VERIFICATION,
+    PASSWORD_RESET
+}
@@ -0,0 +1,42 @@
+package com.simo.learnspringboot.learnspringboot.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * An email verification or password reset token. Looked up by the digest of the value in the link, which is
+ * unique-indexed, and deleted the moment it is used.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "one_time_tokens", indexes = {
+        @Index(name = "ux_one_time_tokens_token_hash", columnList = "tokenHash", unique = true),
+        @Index(name = "ix_one_time_tokens_user_id", columnList = "user_id"),
+        @Index(name = "ix_one_time_tokens_expires_at", columnList = "expiresAt")
+})
+public class OneTimeToken {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    // SHA-256 of the token; the raw value is only kept in the outbox until the email is sent.
+    @Column(nullable = false, length = 64)
+    private String tokenHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private TokenType type;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
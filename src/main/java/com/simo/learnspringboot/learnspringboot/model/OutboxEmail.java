@@ -0,0 +1,49 @@
+package com.simo.learnspringboot.learnspringboot.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * An email that still has to be sent. Written in the same transaction as the user change that needs it,
+ * and deleted once the dispatcher has handed it to the SMTP server, or moved to {@link DeadLetterEmail}
+ * once it cannot be delivered.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "ix_email_outbox_next_attempt_at", columnList = "nextAttemptAt")
+})
+public class OutboxEmail {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private EmailType type;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    // The verification or reset token the email links to.
+    @Column(nullable = false)
+    private String token;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    // Not picked up before this instant; pushed back with a growing delay after every transient failure.
+    @Column(nullable = false)
+    private Instant nextAttemptAt;
+
+    private int attempts;
+
+    @Column(length = 1000)
+    private String lastError;
+}
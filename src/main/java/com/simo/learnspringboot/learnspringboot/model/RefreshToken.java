@@ -0,0 +1,47 @@
+package com.simo.learnspringboot.learnspringboot.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "ux_refresh_tokens_token_hash", columnList = "tokenHash", unique = true),
+        @Index(name = "ix_refresh_tokens_family_id", columnList = "familyId"),
+        @Index(name = "ix_refresh_tokens_user_id", columnList = "user_id")
+})
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue
+    private UUID id;
+
+    // SHA-256 of the opaque token; the raw value is only ever sent to the client.
+    @Column(nullable = false, length = 64)
+    private String tokenHash;
+
+    // All tokens produced by rotating the same login share a family, so a replay can revoke them together.
+    @Column(nullable = false)
+    private UUID familyId;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    private Instant usedAt;
+    private Instant revokedAt;
+
+    @Version
+    private long version;
+}
@@ -0,0 +1,6 @@
+package com.simo.learnspringboot.learnspringboot.model;
+
+public enum TokenType {
+    EMAIL_VERIFICATION,
+    PASSWORD_RESET
+}
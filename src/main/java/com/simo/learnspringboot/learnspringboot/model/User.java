@@ -2,31 +2,48 @@ package com.simo.learnspringboot.learnspringboot.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
-
-import java.time.LocalDateTime;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.time.Instant;
 import java.util.UUID;
 
 @Data
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "ux_users_email", columnList = "email", unique = true),
+        // Lets the sweeper find stale unverified accounts without scanning the verified ones.
+        @Index(name = "ix_users_verified_created_at", columnList = "verified, createdAt")
+})
+@EntityListeners(UserChangeListener.class)
+// Lookups by email resolve the id from the natural-id cache and the row from the entity cache; Hibernate updates
+// both when a user is saved and invalidates them on bulk JPQL writes.
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users-by-email")
 public class User {
 
+    // Time-ordered, so new users are appended to the primary-key index rather than scattered across it.
     @Id
-    @GeneratedValue
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     private UUID id;
 
-    private String passwordResetToken;
-    private LocalDateTime tokenExpiryDate;
-
-    private String emailVerificationToken;
     private boolean verified = false;
 
     private String name;
 
-    @Column(unique = true, nullable = false)
+    @NaturalId
+    @Column(nullable = false)
     private String email;
 
     private String password;
 
     private String role; // e.g., ROLE_USER, ROLE_ADMIN
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private Instant createdAt;
 }
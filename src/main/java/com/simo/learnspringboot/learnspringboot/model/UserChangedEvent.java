@@ -0,0 +1,8 @@
+package com.simo.learnspringboot.learnspringboot.model;
+
+/**
+ * Published whenever a {@link User} is inserted, updated or deleted, so anything cached for that email can be dropped
+ * and reads of it can avoid lagging replicas.
+ */
+public record UserChangedEvent(String email) {
+}
@@ -0,0 +1,54 @@
+package com.simo.learnspringboot.learnspringboot.model;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.uuid.UuidValueGenerator;
+
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates RFC 9562 version 7 UUIDs: a 48-bit Unix millisecond timestamp, a 12-bit counter that keeps ids minted
+ * within the same millisecond in order, and 62 random bits. Consecutive inserts therefore land next to each other at
+ * the right edge of the primary-key index instead of on a random page, as v4 ids do. Plug it in with
+ * {@code @UuidGenerator(algorithm = UuidV7Generator.class)}; ids are still assigned in memory, so inserts stay
+ * batchable.
+ * <p>
+ * The ids are unique and ordered, not secret: the random bits come from {@link ThreadLocalRandom}, and the
+ * timestamp reveals when the row was created.
+ */
+public class UuidV7Generator implements UuidValueGenerator {
+
+    private static final long COUNTER_BITS = 12;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+    private final Clock clock;
+    // Timestamp and counter of the last id, as (millis << 12) | counter.
+    private final AtomicLong last = new AtomicLong();
+
+    public UuidV7Generator() {
+        this(Clock.systemUTC());
+    }
+
+    UuidV7Generator(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public UUID generateUuid(SharedSessionContractImplementor session) {
+        return generate();
+    }
+
+    public UUID generate() {
+        long now = clock.millis() << COUNTER_BITS;
+        // Same or earlier millisecond (including a clock stepping back): take the next counter value. A counter that
+        // overflows carries into the timestamp, so ids stay strictly increasing.
+        long state = last.updateAndGet(previous -> Math.max(now, previous + 1));
+
+        long millis = state >>> COUNTER_BITS;
+        long mostSigBits = (millis << 16) | 0x7000L | (state & COUNTER_MASK);
+        long leastSigBits = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+}
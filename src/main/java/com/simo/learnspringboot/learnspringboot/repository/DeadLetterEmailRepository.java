@@ -0,0 +1,13 @@
+package com.simo.learnspringboot.learnspringboot.repository;
+
+import com.simo.learnspringboot.learnspringboot.model.DeadLetterEmail;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.UUID;
+
+public interface DeadLetterEmailRepository extends JpaRepository<DeadLetterEmail, UUID> {
+
+    Page<DeadLetterEmail> findAllByOrderByFailedAtDesc(Pageable pageable);
+}
@@ -0,0 +1,38 @@
+package com.simo.learnspringboot.learnspringboot.repository;
+
+import com.simo.learnspringboot.learnspringboot.model.OneTimeToken;
+import com.simo.learnspringboot.learnspringboot.model.TokenType;
+import com.simo.learnspringboot.learnspringboot.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface OneTimeTokenRepository extends JpaRepository<OneTimeToken, UUID> {
+
+    @Query("select t from OneTimeToken t join fetch t.user where t.tokenHash = :tokenHash and t.type = :type")
+    Optional<OneTimeToken> findByTokenHashAndType(@Param("tokenHash") String tokenHash, @Param("type") TokenType type);
+
+    // Returns 0 when a concurrent request already used the token.
+    @Modifying
+    @Query("delete from OneTimeToken t where t.id = :id")
+    int deleteByIdReturningCount(@Param("id") UUID id);
+
+    @Modifying
+    @Query("delete from OneTimeToken t where t.user = :user and t.type = :type")
+    int deleteAllByUserAndType(@Param("user") User user, @Param("type") TokenType type);
+
+    @Query("select t.id from OneTimeToken t where t.expiresAt <= :now")
+    List<UUID> findExpiredIds(@Param("now") Instant now, Pageable pageable);
+
+    @Modifying
+    @Query("delete from OneTimeToken t where t.user.id in :userIds")
+    int deleteAllByUserIdIn(@Param("userIds") Collection<UUID> userIds);
+}
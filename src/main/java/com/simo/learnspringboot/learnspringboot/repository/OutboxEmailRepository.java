@@ -0,0 +1,25 @@
+package com.simo.learnspringboot.learnspringboot.repository;
+
+import com.simo.learnspringboot.learnspringboot.model.OutboxEmail;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, UUID> {
+
+    // Emails whose backoff has passed, longest waiting first; retried emails sit behind fresh ones until they are due.
+    List<OutboxEmail> findAllByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(Instant now, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxEmail e set e.attempts = e.attempts + 1, e.lastError = :error, e.nextAttemptAt = :nextAttemptAt "
+            + "where e.id = :id")
+    void recordFailure(@Param("id") UUID id, @Param("error") String error, @Param("nextAttemptAt") Instant nextAttemptAt);
+}
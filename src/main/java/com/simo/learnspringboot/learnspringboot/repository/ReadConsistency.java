@@ -0,0 +1,56 @@
+package com.simo.learnspringboot.learnspringboot.repository;
+
+import java.util.function.Supplier;
+
+/**
+ * Hints for the replica routing, set around a lookup on the current thread. Without read replicas both are no-ops.
+ * <ul>
+ *     <li>{@link #readingUser} names the user a read-only lookup is about, so a user this node wrote within the
+ *     replicas' lag is read from the primary.</li>
+ *     <li>{@link #onPrimary} sends the lookup to the primary, bypassing the second-level cache. Writes made on other
+ *     nodes are not known here, so the auth paths re-read from the primary whenever a replica says a user is missing
+ *     or unverified.</li>
+ * </ul>
+ */
+public final class ReadConsistency {
+
+    private static final ThreadLocal<String> CURRENT_USER = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private ReadConsistency() {
+    }
+
+    public static <T> T readingUser(String email, Supplier<T> lookup) {
+        String previous = CURRENT_USER.get();
+        CURRENT_USER.set(email);
+        try {
+            return lookup.get();
+        } finally {
+            if (previous == null) {
+                CURRENT_USER.remove();
+            } else {
+                CURRENT_USER.set(previous);
+            }
+        }
+    }
+
+    public static <T> T onPrimary(Supplier<T> lookup) {
+        if (primaryRequired()) {
+            return lookup.get();
+        }
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return lookup.get();
+        } finally {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+
+    public static String currentUser() {
+        return CURRENT_USER.get();
+    }
+
+    public static boolean primaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+}
@@ -0,0 +1,36 @@
+package com.simo.learnspringboot.learnspringboot.repository;
+
+import com.simo.learnspringboot.learnspringboot.model.RefreshToken;
+import com.simo.learnspringboot.learnspringboot.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
+
+    @Query("select r from RefreshToken r join fetch r.user where r.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHash(@Param("tokenHash") String tokenHash);
+
+    // Returns 0 when the token was already used or revoked, e.g. by a concurrent rotation.
+    @Modifying
+    @Query("update RefreshToken r set r.usedAt = :now where r.id = :id and r.usedAt is null and r.revokedAt is null")
+    int markUsed(@Param("id") UUID id, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update RefreshToken r set r.revokedAt = :now where r.familyId = :familyId and r.revokedAt is null")
+    int revokeFamily(@Param("familyId") UUID familyId, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update RefreshToken r set r.revokedAt = :now where r.user = :user and r.revokedAt is null")
+    int revokeAllForUser(@Param("user") User user, @Param("now") Instant now);
+
+    @Modifying
+    @Query("delete from RefreshToken r where r.user.id in :userIds")
+    int deleteAllByUserIdIn(@Param("userIds") Collection<UUID> userIds);
+}
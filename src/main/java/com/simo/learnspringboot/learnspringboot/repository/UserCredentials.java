@@ -0,0 +1,13 @@
+package com.simo.learnspringboot.learnspringboot.repository;
+
+/**
+ * Read-only view of the four columns authentication needs. Built by a JPQL constructor expression,
+ * so loading it never puts a managed {@code User} into the persistence context.
+ */
+public record UserCredentials(
+        String email,
+        String password,
+        String role,
+        boolean verified
+) {
+}
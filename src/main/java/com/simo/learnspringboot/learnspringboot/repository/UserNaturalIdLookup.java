@@ -0,0 +1,14 @@
+package com.simo.learnspringboot.learnspringboot.repository;
+
+import com.simo.learnspringboot.learnspringboot.model.User;
+
+import java.util.Optional;
+
+/**
+ * Loads users by their natural id, the email, so a repeated lookup is answered from the natural-id and entity
+ * caches instead of running a query.
+ */
+public interface UserNaturalIdLookup {
+
+    Optional<User> findByEmail(String email);
+}
@@ -0,0 +1,37 @@
+package com.simo.learnspringboot.learnspringboot.repository;
+
+import com.simo.learnspringboot.learnspringboot.model.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+class UserNaturalIdLookupImpl implements UserNaturalIdLookup {
+
+    private final EntityManager entityManager;
+
+    UserNaturalIdLookupImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    // A derived query would always hit the database: only natural-id loads consult the natural-id cache.
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findByEmail(String email) {
+        Session session = entityManager.unwrap(Session.class);
+        if (!ReadConsistency.primaryRequired()) {
+            return ReadConsistency.readingUser(email,
+                    () -> session.bySimpleNaturalId(User.class).loadOptional(email));
+        }
+        // The cached entry may have been loaded from a lagging replica: read the primary and refresh the cache.
+        CacheMode previous = session.getCacheMode();
+        session.setCacheMode(CacheMode.REFRESH);
+        try {
+            return session.bySimpleNaturalId(User.class).loadOptional(email);
+        } finally {
+            session.setCacheMode(previous);
+        }
+    }
+}
@@ -1,13 +1,39 @@
 package com.simo.learnspringboot.learnspringboot.repository;
 
 import com.simo.learnspringboot.learnspringboot.model.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
-public interface UserRepository extends JpaRepository<User, UUID> {
-    Optional<User> findByEmail(String email);
-    Optional<User> findByPasswordResetToken(String token);
-    Optional<User> findByEmailVerificationToken(String token);
-}
\ No newline at end of file
+public interface UserRepository extends JpaRepository<User, UUID>, UserNaturalIdLookup {
+
+    // Read-only so that, with read replicas, logins are served by a replica.
+    @Transactional(readOnly = true)
+    @Query("select new com.simo.learnspringboot.learnspringboot.repository.UserCredentials(u.email, u.password, u.role, u.verified) " +
+            "from User u where u.email = :email")
+    Optional<UserCredentials> findCredentialsByEmail(@Param("email") String email);
+
+    @Query("select u.email from User u where u.email in :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // Accounts created before the record had a creation time are never considered stale. The rows are locked until
+    // the sweep commits, so an account cannot be verified between being picked and being deleted; rows a
+    // verification is holding are skipped where the database supports it, and waited for otherwise. A lock timeout
+    // of -2 is Hibernate's SKIP LOCKED.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<User> findAllByVerifiedFalseAndCreatedAtBefore(Instant cutoff, Pageable pageable);
+}
@@ -1,35 +1,67 @@
 package com.simo.learnspringboot.learnspringboot.security;
 
+import com.simo.learnspringboot.learnspringboot.config.ReadReplicaProperties;
+import com.simo.learnspringboot.learnspringboot.repository.ReadConsistency;
+import com.simo.learnspringboot.learnspringboot.repository.UserCredentials;
 import com.simo.learnspringboot.learnspringboot.repository.UserRepository;
 import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final ReadReplicaProperties readReplicaProperties;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, UserDetailsCache userDetailsCache,
+                                    ReadReplicaProperties readReplicaProperties) {
         this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
+        this.readReplicaProperties = readReplicaProperties;
     }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        var user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + email));
+        return userDetailsCache.get(email, this::loadFromDatabase);
+    }
+
+    /**
+     * Called by the authentication provider after a successful login whose stored hash is weaker than the current
+     * encoder settings, with the password freshly hashed. Saving through the entity evicts the cached details.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.findByEmail(user.getUsername()).ifPresent(entity -> entity.setPassword(newPassword));
+        return org.springframework.security.core.userdetails.User.withUserDetails(user).password(newPassword).build();
+    }
+
+    private UserDetails loadFromDatabase(String email) {
+        // Only the four columns below are read; no entity is hydrated or dirty-checked. A user verified moments ago
+        // is read from the primary, so the login does not fail on a replica that has not caught up; that includes a
+        // verification made on another node, which this one cannot know about. Without replicas the first read
+        // already came from the primary, so an unknown or unverified email is not looked up twice.
+        var credentials = ReadConsistency.readingUser(email, () -> userRepository.findCredentialsByEmail(email));
+        if (readReplicaProperties.isEnabled()) {
+            credentials = credentials.filter(UserCredentials::verified)
+                    .or(() -> ReadConsistency.onPrimary(() -> userRepository.findCredentialsByEmail(email)));
+        }
+        var user = credentials.orElseThrow(() -> new UsernameNotFoundException("User not found: " + email));
 
-        if (!user.isVerified()) {
+        if (!user.verified()) {
             throw new DisabledException("User account is not verified. Please check your email.");
         }
 
         return new org.springframework.security.core.userdetails.User(
-                user.getEmail(),
-                user.getPassword(),
-                List.of(new SimpleGrantedAuthority(user.getRole()))
+                user.email(),
+                user.password(),
+                List.of(new SimpleGrantedAuthority(user.role()))
         );
     }
 
@@ -0,0 +1,104 @@
+package com.simo.learnspringboot.learnspringboot.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.util.Base64;
+
+/**
+ * Allocation-light ES256 minting path for one signing key. The header segment never changes for a key, so it
+ * is encoded once; the small claims payload is written straight to JSON and signed with a per-thread
+ * {@link Signature}.
+ * <p>
+ * The JSON is written exactly the way jjwt's Jackson serializer writes the same claims, so the payload is
+ * byte-for-byte what {@code Jwts.builder()} would produce and the tokens are accepted by the jjwt parser.
+ */
+final class Es256TokenMinter {
+
+    // JWS wants the raw R || S signature, not the DER encoding the plain SHA256withECDSA produces.
+    private static final String SIGNATURE_ALGORITHM = "SHA256withECDSAinP1363Format";
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final String headerSegment;
+    private final ThreadLocal<Signature> signature;
+
+    Es256TokenMinter(String kid, PrivateKey privateKey) {
+        StringBuilder header = new StringBuilder("{\"alg\":\"ES256\",");
+        appendString(header, "kid", kid).append('}');
+        this.headerSegment = BASE64_URL.encodeToString(header.toString().getBytes(StandardCharsets.UTF_8)) + ".";
+        this.signature = ThreadLocal.withInitial(() -> {
+            try {
+                Signature instance = Signature.getInstance(SIGNATURE_ALGORITHM);
+                instance.initSign(privateKey);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("ES256 signing is not available", e);
+            }
+        });
+    }
+
+    /**
+     * @param role     written only when not null
+     * @param verified written only when not null
+     */
+    String mint(String jti, String subject, String role, Boolean verified,
+                long issuedAtSeconds, long expiresAtSeconds) {
+        StringBuilder json = new StringBuilder(128 + subject.length());
+        json.append('{');
+        appendString(json, "jti", jti).append(',');
+        appendString(json, "sub", subject).append(',');
+        if (role != null) {
+            appendString(json, TokenClaims.ROLE_CLAIM, role).append(',');
+        }
+        if (verified != null) {
+            json.append('"').append(TokenClaims.VERIFIED_CLAIM).append("\":").append(verified.booleanValue()).append(',');
+        }
+        json.append("\"iat\":").append(issuedAtSeconds).append(',');
+        json.append("\"exp\":").append(expiresAtSeconds);
+        json.append('}');
+
+        String signingInput = headerSegment + BASE64_URL.encodeToString(json.toString().getBytes(StandardCharsets.UTF_8));
+        return signingInput + '.' + BASE64_URL.encodeToString(sign(signingInput));
+    }
+
+    private byte[] sign(String signingInput) {
+        // sign() resets the Signature to the signing state, so the per-thread instance is ready for the next token.
+        Signature instance = signature.get();
+        try {
+            instance.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return instance.sign();
+        } catch (java.security.SignatureException e) {
+            throw new IllegalStateException("Could not sign the token", e);
+        }
+    }
+
+    private static StringBuilder appendString(StringBuilder json, String name, String value) {
+        json.append('"').append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\b' -> json.append("\\b");
+                case '\f' -> json.append("\\f");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else if (Character.isSurrogate(c)) {
+                        // Jackson escapes both halves of a surrogate pair instead of writing 4-byte UTF-8.
+                        json.append("\\u").append(HEX[c >> 12]).append(HEX[(c >> 8) & 0xF])
+                                .append(HEX[(c >> 4) & 0xF]).append(HEX[c & 0xF]);
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"');
+    }
+}
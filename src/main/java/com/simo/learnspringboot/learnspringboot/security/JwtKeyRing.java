@@ -0,0 +1,171 @@
+package com.simo.learnspringboot.learnspringboot.security;
+
+import com.simo.learnspringboot.learnspringboot.config.JwtProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * ES256 signing keys, each tagged with a {@code kid}. The active key signs new tokens, the next key is already
+ * published so verifiers have it cached before it signs anything, and keys rotated out keep verifying until the
+ * last token they signed has expired. Verification picks the key by the token's {@code kid} in one lookup.
+ * <p>
+ * Keys live in memory and are regenerated on restart, which only costs a re-login for access tokens in flight.
+ */
+@Component
+public class JwtKeyRing extends SigningKeyResolverAdapter {
+
+    private static final String ALGORITHM = "ES256";
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final Duration verificationOverlap;
+    private final Clock clock;
+
+    // Replaced as a whole on rotation, so readers always see a consistent set without locking.
+    private volatile KeySet keySet;
+
+    @Autowired
+    public JwtKeyRing(JwtProperties jwtProperties) {
+        this(jwtProperties, Clock.systemUTC());
+    }
+
+    JwtKeyRing(JwtProperties jwtProperties, Clock clock) {
+        this.verificationOverlap = jwtProperties.getAccessTokenTtl();
+        this.clock = clock;
+        this.keySet = new KeySet(newKey(), newKey(), List.of());
+    }
+
+    SigningKey activeKey() {
+        return keySet.active;
+    }
+
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        SigningKey key = header.getKeyId() != null ? keySet.verifying.get(header.getKeyId()) : null;
+        if (key == null || key.isRetired(clock.instant()) || !ALGORITHM.equals(header.getAlgorithm())) {
+            throw new SignatureException("Token is not signed by a current signing key.");
+        }
+        return key.publicKey();
+    }
+
+    /**
+     * Promotes the next key to active. The previous active key keeps verifying for one access-token lifetime.
+     */
+    @Scheduled(fixedRateString = "${app.jwt.keys.rotation-interval:P1D}",
+            initialDelayString = "${app.jwt.keys.rotation-interval:P1D}")
+    public synchronized void rotate() {
+        Instant now = clock.instant();
+        KeySet current = keySet;
+
+        List<SigningKey> retiring = new ArrayList<>();
+        for (SigningKey key : current.retiring) {
+            if (!key.isRetired(now)) {
+                retiring.add(key);
+            }
+        }
+        retiring.add(current.active.retiringAt(now.plus(verificationOverlap)));
+
+        keySet = new KeySet(current.next, newKey(), retiring);
+    }
+
+    /**
+     * The public keys as a JWK Set: active, next and every key that still verifies tokens.
+     */
+    public Map<String, Object> jwks() {
+        Instant now = clock.instant();
+        KeySet current = keySet;
+
+        List<Map<String, String>> keys = new ArrayList<>();
+        keys.add(toJwk(current.active));
+        keys.add(toJwk(current.next));
+        for (SigningKey key : current.retiring) {
+            if (!key.isRetired(now)) {
+                keys.add(toJwk(key));
+            }
+        }
+        return Map.of("keys", keys);
+    }
+
+    private static SigningKey newKey() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            KeyPair keyPair = generator.generateKeyPair();
+            String kid = UUID.randomUUID().toString();
+            return new SigningKey(kid, (ECPublicKey) keyPair.getPublic(),
+                    new Es256TokenMinter(kid, keyPair.getPrivate()), null);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not generate an ES256 key", e);
+        }
+    }
+
+    private static Map<String, String> toJwk(SigningKey key) {
+        Map<String, String> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("kid", key.kid());
+        jwk.put("use", "sig");
+        jwk.put("alg", ALGORITHM);
+        jwk.put("x", coordinate(key.publicKey().getW().getAffineX()));
+        jwk.put("y", coordinate(key.publicKey().getW().getAffineY()));
+        return jwk;
+    }
+
+    // JWK coordinates are unsigned and exactly 32 bytes for P-256; BigInteger may add a sign byte or drop leading zeros.
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] fixed = new byte[32];
+        int length = Math.min(bytes.length, fixed.length);
+        System.arraycopy(bytes, bytes.length - length, fixed, fixed.length - length, length);
+        return BASE64_URL.encodeToString(fixed);
+    }
+
+    record SigningKey(String kid, ECPublicKey publicKey, Es256TokenMinter minter, Instant retiresAt) {
+
+        boolean isRetired(Instant now) {
+            return retiresAt != null && !now.isBefore(retiresAt);
+        }
+
+        SigningKey retiringAt(Instant instant) {
+            return new SigningKey(kid, publicKey, minter, instant);
+        }
+    }
+
+    private static final class KeySet {
+        private final SigningKey active;
+        private final SigningKey next;
+        private final List<SigningKey> retiring;
+        // kid -> every key that may have signed a token still in circulation
+        private final Map<String, SigningKey> verifying = new HashMap<>();
+
+        private KeySet(SigningKey active, SigningKey next, List<SigningKey> retiring) {
+            this.active = active;
+            this.next = next;
+            this.retiring = List.copyOf(retiring);
+            verifying.put(active.kid(), active);
+            retiring.forEach(key -> verifying.put(key.kid(), key));
+        }
+    }
+}
@@ -1,50 +1,70 @@
 package com.simo.learnspringboot.learnspringboot.security;
 
+import com.simo.learnspringboot.learnspringboot.config.JwtProperties;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
-import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
-    private final String SECRET = "superSecretKeyThatShouldBeAtLeast32Characters!";
-    private final Long EXPIRATION_TIME = 86400000L; // 1 day in milliseconds
+    private final long expirationSeconds;
+    private final JwtKeyRing keyRing;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET.getBytes());
+    // The parser is immutable and thread-safe, so it is built once; the key ring picks the key by kid per token.
+    private final JwtParser jwtParser;
+
+    public JwtUtil(JwtProperties jwtProperties, JwtKeyRing keyRing) {
+        this.expirationSeconds = jwtProperties.getAccessTokenTtl().toSeconds();
+        this.keyRing = keyRing;
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(keyRing)
+                .build();
     }
 
     public String generateToken(String username) {
-        return Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+        return mint(username, null, null);
+    }
+
+    /**
+     * Generates a token that also carries the user's role and verified flag as signed claims,
+     * so the authentication filter can rebuild the principal without loading the user.
+     */
+    public String generateToken(String username, String role, boolean verified) {
+        return mint(username, role, verified);
+    }
+
+    private String mint(String username, String role, Boolean verified) {
+        // iat and exp are NumericDates, i.e. whole seconds, exactly as jjwt writes them.
+        long issuedAt = System.currentTimeMillis() / 1000;
+        // Minting skips the jjwt builder; the parser above still verifies what it produces.
+        return keyRing.activeKey().minter().mint(UUID.randomUUID().toString(), username, role, verified,
+                issuedAt, issuedAt + expirationSeconds);
+    }
+
+    /**
+     * Parses the token and verifies its signature and expiry in a single pass.
+     *
+     * @return the verified claims, or empty if the token is malformed, expired or not signed by us
+     */
+    public Optional<TokenClaims> verifyToken(String token) {
+        try {
+            return Optional.of(TokenClaims.from(jwtParser.parseClaimsJws(token).getBody()));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
     }
 
     public String extractUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
+        return jwtParser.parseClaimsJws(token)
                 .getBody()
                 .getSubject();
     }
 
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return verifyToken(token).isPresent();
     }
 }
@@ -0,0 +1,99 @@
+package com.simo.learnspringboot.learnspringboot.security;
+
+import com.simo.learnspringboot.learnspringboot.config.PasswordHashingProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * The BCrypt strength new password hashes use, chosen at startup by timing candidate strengths on this machine.
+ * The strongest one whose median hash time fits the budget wins, so small pods keep logins fast and big ones
+ * get the stronger hash they can afford. Each step up doubles the work, so only a few candidates are ever timed.
+ *
+ * @param strength the BCrypt log rounds to hash with
+ * @param budget   the time one hash may take: the target latency, or less if the throughput floor demands it
+ * @param measured median hash time per timed strength, in the order they were timed; empty if calibration is off
+ */
+public record PasswordHashCalibration(int strength, Duration budget, Map<Integer, Duration> measured) {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashCalibration.class);
+    private static final String SAMPLE_PASSWORD = "Calibrate-Me-123!";
+
+    public static PasswordHashCalibration calibrate(PasswordHashingProperties.Calibration settings) {
+        if (!settings.isEnabled()) {
+            return new PasswordHashCalibration(settings.getStrength(), Duration.ZERO, Map.of());
+        }
+        // Warm up the JIT on a cheap hash first, or the first candidate would look slower than it is.
+        new BCryptPasswordEncoder(4).encode(SAMPLE_PASSWORD);
+        return calibrate(settings, strength -> time(new BCryptPasswordEncoder(strength)));
+    }
+
+    static PasswordHashCalibration calibrate(PasswordHashingProperties.Calibration settings,
+                                             IntFunction<Duration> hashTime) {
+        Duration budget = budget(settings);
+        Map<Integer, Duration> measured = new LinkedHashMap<>();
+        int chosen = settings.getMinStrength();
+        for (int strength = settings.getMinStrength(); strength <= settings.getMaxStrength(); strength++) {
+            int candidate = strength;
+            Duration median = median(settings.getSamples(), budget, () -> hashTime.apply(candidate));
+            measured.put(strength, median);
+            if (median.compareTo(budget) > 0) {
+                break;
+            }
+            chosen = strength;
+        }
+
+        if (measured.get(chosen).compareTo(budget) > 0) {
+            log.warn("BCrypt strength {} takes {} ms here, over the {} ms budget; not going below the minimum",
+                    chosen, measured.get(chosen).toMillis(), budget.toMillis());
+        }
+        if (log.isInfoEnabled()) {
+            StringBuilder timings = new StringBuilder();
+            measured.forEach((strength, time) -> timings.append(' ').append(strength).append('=')
+                    .append(time.toMillis()).append("ms"));
+            log.info("Password hashing calibrated to BCrypt strength {} (budget {} ms, measured:{})",
+                    chosen, budget.toMillis(), timings);
+        }
+        return new PasswordHashCalibration(chosen, budget, Collections.unmodifiableMap(measured));
+    }
+
+    private static Duration budget(PasswordHashingProperties.Calibration settings) {
+        Duration budget = settings.getTargetLatency();
+        if (settings.getMinThroughputPerCore() > 0) {
+            Duration perHash = Duration.ofNanos((long) (1_000_000_000L / settings.getMinThroughputPerCore()));
+            if (perHash.compareTo(budget) < 0) {
+                budget = perHash;
+            }
+        }
+        return budget;
+    }
+
+    private static Duration median(int samples, Duration budget, Supplier<Duration> sample) {
+        Duration first = sample.get();
+        // Far over budget already: the remaining samples cannot change the outcome, and each one is expensive.
+        if (first.compareTo(budget.multipliedBy(2)) > 0 || samples <= 1) {
+            return first;
+        }
+        Duration[] times = new Duration[samples];
+        times[0] = first;
+        for (int i = 1; i < samples; i++) {
+            times[i] = sample.get();
+        }
+        Arrays.sort(times);
+        return times[samples / 2];
+    }
+
+    private static Duration time(BCryptPasswordEncoder encoder) {
+        long start = System.nanoTime();
+        encoder.encode(SAMPLE_PASSWORD);
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+}
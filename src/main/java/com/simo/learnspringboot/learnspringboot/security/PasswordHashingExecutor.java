@@ -0,0 +1,60 @@
+package com.simo.learnspringboot.learnspringboot.security;
+
+import com.simo.learnspringboot.learnspringboot.config.PasswordHashingProperties;
+import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.ServerBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs the requests that hash or verify a password (register, login, reset) on a small pool sized to the CPU,
+ * off the servlet container's request threads. A login storm then queues up here instead of taking every Tomcat
+ * thread, and once the bounded queue is full further requests are rejected right away with 503 rather than waiting.
+ * <p>
+ * Deliberately not an {@link java.util.concurrent.Executor} bean, which would replace Boot's application task
+ * executor.
+ */
+@Component
+public class PasswordHashingExecutor implements DisposableBean {
+
+    private final ExecutorService executor;
+    private final Duration retryAfter;
+
+    public PasswordHashingExecutor(PasswordHashingProperties properties, MeterRegistry meterRegistry) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                new CustomizableThreadFactory("password-hashing-"), new ThreadPoolExecutor.AbortPolicy());
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "password-hashing", List.of());
+        this.retryAfter = properties.getRetryAfter();
+    }
+
+    /**
+     * Runs the task on the hashing pool.
+     *
+     * @throws ServerBusyException if the pool and its queue are full
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            throw new ServerBusyException("Too many authentication requests, please retry shortly.", retryAfter);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
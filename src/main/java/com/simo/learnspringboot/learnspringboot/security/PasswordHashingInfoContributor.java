@@ -0,0 +1,36 @@
+package com.simo.learnspringboot.learnspringboot.security;
+
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shows the calibrated password hashing settings under {@code passwordHashing} in {@code /actuator/info}.
+ */
+@Component
+public class PasswordHashingInfoContributor implements InfoContributor {
+
+    private final PasswordHashCalibration calibration;
+
+    public PasswordHashingInfoContributor(PasswordHashCalibration calibration) {
+        this.calibration = calibration;
+    }
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        Map<String, Object> measuredMillis = new LinkedHashMap<>();
+        calibration.measured().forEach((strength, time) -> measuredMillis.put(String.valueOf(strength),
+                Math.round(time.toNanos() / 100_000.0) / 10.0));
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("algorithm", "bcrypt");
+        details.put("strength", calibration.strength());
+        details.put("calibrated", !calibration.measured().isEmpty());
+        details.put("budgetMillis", calibration.budget().toMillis());
+        details.put("measuredMillis", measuredMillis);
+        builder.withDetail("passwordHashing", details);
+    }
+}
@@ -0,0 +1,75 @@
+package com.simo.learnspringboot.learnspringboot.security;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory token buckets, one per key, implemented as the generic cell rate algorithm: instead of a token count and
+ * a last-refill time, each bucket is a single {@link AtomicLong} holding the instant at which it will be full again.
+ * Taking a token pushes that instant one refill period further; the request is refused when that would put it more
+ * than {@code capacity} periods ahead of now. One compare-and-set per request and no locks, so keys never contend
+ * with each other and a hot key only retries its CAS.
+ */
+public class RateLimiter {
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final long refillMillis;
+    private final long burstMillis;
+    private final Clock clock;
+
+    public RateLimiter(int capacity, Duration refillPeriod, Clock clock) {
+        if (capacity < 1 || refillPeriod.toMillis() < 1) {
+            throw new IllegalArgumentException("A rate limit needs a capacity and a refill period of at least 1");
+        }
+        this.refillMillis = refillPeriod.toMillis();
+        this.burstMillis = refillMillis * capacity;
+        this.clock = clock;
+    }
+
+    /**
+     * Takes a token from the key's bucket.
+     *
+     * @return 0 if the request is allowed, otherwise how many milliseconds until a token is available
+     */
+    public long tryAcquire(String key) {
+        AtomicLong fullAt = buckets.get(key);
+        if (fullAt == null) {
+            fullAt = buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+        }
+        long now = clock.millis();
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + refillMillis;
+            long wait = next - burstMillis - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drops the buckets that are full again. A request racing the removal may take its token from the dropped
+     * bucket, which at worst lets that key have one request more than its capacity.
+     *
+     * @return the number of buckets dropped
+     */
+    public int evictIdle() {
+        long now = clock.millis();
+        int evicted = 0;
+        for (var entry : buckets.entrySet()) {
+            if (entry.getValue().get() <= now && buckets.remove(entry.getKey(), entry.getValue())) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,45 @@
+package com.simo.learnspringboot.learnspringboot.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+
+/**
+ * Immutable view of the claims of a token whose signature and expiry have already been verified.
+ * {@code role} and {@code verified} are null for tokens minted without principal claims,
+ * {@code jti} is null for tokens minted before every token got an id.
+ */
+public record TokenClaims(
+        String subject,
+        Instant issuedAt,
+        Instant expiresAt,
+        String role,
+        Boolean verified,
+        String jti
+) {
+
+    public static final String ROLE_CLAIM = "role";
+    public static final String VERIFIED_CLAIM = "verified";
+
+    public TokenClaims(String subject, Instant issuedAt, Instant expiresAt) {
+        this(subject, issuedAt, expiresAt, null, null, null);
+    }
+
+    /**
+     * True when the token carries everything needed to build the principal without a database lookup.
+     */
+    public boolean hasPrincipalClaims() {
+        return role != null && verified != null;
+    }
+
+    static TokenClaims from(Claims claims) {
+        return new TokenClaims(
+                claims.getSubject(),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                claims.get(ROLE_CLAIM, String.class),
+                claims.get(VERIFIED_CLAIM, Boolean.class),
+                claims.getId()
+        );
+    }
+}
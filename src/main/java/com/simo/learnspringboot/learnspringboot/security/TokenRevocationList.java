@@ -0,0 +1,77 @@
+package com.simo.learnspringboot.learnspringboot.security;
+
+import com.simo.learnspringboot.learnspringboot.config.JwtProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory set of revoked access tokens, checked by the authentication filter on every request.
+ * Lookups are two hash probes. Every entry carries the instant after which the tokens it covers
+ * are expired anyway, and is purged from then on, so the set stays as small as the number of
+ * revocations inside one access-token lifetime.
+ */
+@Component
+public class TokenRevocationList {
+
+    // jti -> exp of the revoked token
+    private final Map<String, Instant> revokedIds = new ConcurrentHashMap<>();
+    // subject -> tokens issued at or before this instant are revoked
+    private final Map<String, Instant> revokedBefore = new ConcurrentHashMap<>();
+
+    private final Duration accessTokenTtl;
+    private final Clock clock;
+
+    @Autowired
+    public TokenRevocationList(JwtProperties jwtProperties) {
+        this(jwtProperties, Clock.systemUTC());
+    }
+
+    TokenRevocationList(JwtProperties jwtProperties, Clock clock) {
+        this.accessTokenTtl = jwtProperties.getAccessTokenTtl();
+        this.clock = clock;
+    }
+
+    public boolean isRevoked(TokenClaims claims) {
+        if (claims.jti() != null && revokedIds.containsKey(claims.jti())) {
+            return true;
+        }
+        if (revokedBefore.isEmpty() || claims.issuedAt() == null) {
+            return false;
+        }
+        Instant cutoff = revokedBefore.get(claims.subject());
+        return cutoff != null && !claims.issuedAt().isAfter(cutoff);
+    }
+
+    public void revoke(String jti, Instant expiresAt) {
+        revokedIds.put(jti, expiresAt);
+    }
+
+    /**
+     * Revokes every token of the subject issued up to now. iat has second precision, so a token
+     * minted later in the same second is revoked too; the user simply logs in again.
+     */
+    public void revokeAllIssuedBefore(String subject) {
+        Instant cutoff = Instant.now(clock).truncatedTo(ChronoUnit.SECONDS);
+        revokedBefore.merge(subject, cutoff, (existing, added) -> existing.isAfter(added) ? existing : added);
+    }
+
+    public int size() {
+        return revokedIds.size() + revokedBefore.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.purge-interval:PT1M}")
+    public void purgeExpired() {
+        Instant now = Instant.now(clock);
+        revokedIds.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+        // Tokens issued before the cutoff expire at most one access-token lifetime after it.
+        revokedBefore.values().removeIf(cutoff -> !cutoff.plus(accessTokenTtl).plusSeconds(1).isAfter(now));
+    }
+}
@@ -0,0 +1,77 @@
+package com.simo.learnspringboot.learnspringboot.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.simo.learnspringboot.learnspringboot.config.UserDetailsCacheProperties;
+import com.simo.learnspringboot.learnspringboot.model.UserChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounded, time-limited cache of the {@link UserDetails} built for an email. Entries are evicted as soon as the
+ * user changes (see {@link UserChangedEvent}), so a new password, role or verified flag applies on the next request.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final boolean enabled;
+    private final Cache<String, UserDetails> cache;
+
+    @Autowired
+    public UserDetailsCache(UserDetailsCacheProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Clock.systemUTC());
+    }
+
+    UserDetailsCache(UserDetailsCacheProperties properties, MeterRegistry meterRegistry, Clock clock) {
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(properties.getTtl())
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user-details");
+    }
+
+    /**
+     * Returns a copy of the cached details for this email, or loads and caches them. Exceptions thrown by the loader
+     * (unknown or unverified user) propagate and nothing is cached.
+     */
+    public UserDetails get(String email, Function<String, UserDetails> loader) {
+        if (!enabled) {
+            return loader.apply(email);
+        }
+        return copyOf(cache.get(email, loader));
+    }
+
+    public void evict(String email) {
+        cache.invalidate(email);
+    }
+
+    /**
+     * Evicts after commit: evicting at flush would let a concurrent request re-cache the old row before it commits.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event.email());
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    // ProviderManager erases the credentials of the details it authenticated, so the cached instance is never handed out.
+    private static UserDetails copyOf(UserDetails details) {
+        return User.withUserDetails(details).build();
+    }
+}
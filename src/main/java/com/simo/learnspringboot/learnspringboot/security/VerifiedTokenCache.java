@@ -0,0 +1,105 @@
+package com.simo.learnspringboot.learnspringboot.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.simo.learnspringboot.learnspringboot.config.JwtProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of tokens whose signature has already been verified, keyed by a SHA-256 digest of the token.
+ * An entry expires at the token's own {@code exp} and is never refreshed on read, so caching can only
+ * shorten a token's lifetime, never extend it.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final boolean enabled;
+    private final Clock clock;
+    private final Cache<String, TokenClaims> cache;
+
+    @Autowired
+    public VerifiedTokenCache(JwtProperties properties, MeterRegistry meterRegistry) {
+        this(properties.getCache(), meterRegistry, Clock.systemUTC());
+    }
+
+    VerifiedTokenCache(JwtProperties.Cache settings, MeterRegistry meterRegistry, Clock clock) {
+        this.enabled = settings.isEnabled();
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(settings.getMaxSize())
+                .expireAfter(new UntilTokenExpiry())
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified-tokens");
+    }
+
+    /**
+     * Returns the cached claims for this token, or runs the verifier and caches its result on success.
+     * Failed verifications are never cached.
+     */
+    public Optional<TokenClaims> getOrVerify(String token, Function<String, Optional<TokenClaims>> verifier) {
+        if (!enabled || token == null) {
+            return verifier.apply(token);
+        }
+
+        String key = TokenDigests.sha256(token);
+        TokenClaims cached = cache.getIfPresent(key);
+        if (cached != null) {
+            // Entries expire lazily, so re-check exp rather than trust the eviction timing.
+            if (isLive(cached)) {
+                return Optional.of(cached);
+            }
+            cache.invalidate(key);
+            return Optional.empty();
+        }
+
+        Optional<TokenClaims> verified = verifier.apply(token);
+        verified.filter(claims -> claims.expiresAt() != null)
+                .ifPresent(claims -> cache.put(key, claims));
+        return verified;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private boolean isLive(TokenClaims claims) {
+        return claims.expiresAt().isAfter(Instant.now(clock));
+    }
+
+    private class UntilTokenExpiry implements Expiry<String, TokenClaims> {
+        @Override
+        public long expireAfterCreate(String key, TokenClaims claims, long currentTime) {
+            long remaining = Duration.between(Instant.now(clock), claims.expiresAt()).toNanos();
+            return Math.max(remaining, 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, TokenClaims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, TokenClaims claims, long currentTime, long currentDuration) {
+            // Reads never push the deadline back.
+            return currentDuration;
+        }
+    }
+}
@@ -1,19 +1,25 @@
 package com.simo.learnspringboot.learnspringboot.service;
 
+import com.simo.learnspringboot.learnspringboot.config.ReadReplicaProperties;
 import com.simo.learnspringboot.learnspringboot.dto.*;
 import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.EmailAlreadyInUseException;
 import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.InvalidAuthCredentialsException;
 import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.InvalidTokenException;
+import com.simo.learnspringboot.learnspringboot.model.TokenType;
 import com.simo.learnspringboot.learnspringboot.model.User;
+import com.simo.learnspringboot.learnspringboot.repository.ReadConsistency;
 import com.simo.learnspringboot.learnspringboot.repository.UserRepository;
 import com.simo.learnspringboot.learnspringboot.security.JwtUtil;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
 
-import java.time.LocalDateTime;
-import java.util.UUID;
 
 @Service
 public class AuthService {
@@ -22,21 +28,46 @@ public class AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
-    private final EmailService emailService;
+    private final EmailOutbox emailOutbox;
+    private final RefreshTokenService refreshTokenService;
+    private final OneTimeTokenService oneTimeTokenService;
+    private final ReadReplicaProperties readReplicaProperties;
+    private final TransactionTemplate transactionTemplate;
 
     public AuthService(AuthenticationManager authenticationManager,
                        UserRepository userRepository,
                        PasswordEncoder passwordEncoder,
-                       EmailService emailService,
-                       JwtUtil jwtUtil) {
+                       EmailOutbox emailOutbox,
+                       JwtUtil jwtUtil,
+                       RefreshTokenService refreshTokenService,
+                       OneTimeTokenService oneTimeTokenService,
+                       ReadReplicaProperties readReplicaProperties,
+                       PlatformTransactionManager transactionManager) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
-        this.emailService = emailService;
+        this.emailOutbox = emailOutbox;
+        this.refreshTokenService = refreshTokenService;
+        this.oneTimeTokenService = oneTimeTokenService;
+        this.readReplicaProperties = readReplicaProperties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public AuthResponseDto register(RegisterRequestDto request) {
+        // Hashed before the transaction starts: BCrypt is slow on purpose and must not hold a JDBC connection.
+        String passwordHash = passwordEncoder.encode(request.password());
+        User user = transactionTemplate.execute(status -> persistNewUser(request, passwordHash));
+
+        return new AuthResponseDto(
+                null,
+                user.getEmail(),
+                user.getRole(),
+                "User registered successfully!"
+        );
+    }
+
+    private User persistNewUser(RegisterRequestDto request, String passwordHash) {
         if (userRepository.findByEmail(request.email()).isPresent()) {
             throw new EmailAlreadyInUseException("Email already in use!");
         }
@@ -44,9 +75,8 @@ public class AuthService {
         User user = new User();
         user.setName(request.name());
         user.setEmail(request.email());
-        user.setPassword(passwordEncoder.encode(request.password()));
+        user.setPassword(passwordHash);
         user.setVerified(false);
-        user.setEmailVerificationToken(UUID.randomUUID().toString());
 
         if (request.email().equals("mohamedkhalisgm@gmail.com")) {
             user.setRole("ROLE_ADMIN");
@@ -55,15 +85,11 @@ public class AuthService {
         }
 
         userRepository.save(user);
+        String verificationToken = oneTimeTokenService.issue(user, TokenType.EMAIL_VERIFICATION);
 
-        emailService.sendVerificationEmail(user.getEmail(), user.getEmailVerificationToken());
-
-        return new AuthResponseDto(
-                null,
-                user.getEmail(),
-                user.getRole(),
-                "User registered successfully!"
-        );
+        // Sent by the outbox dispatcher once this transaction commits; SMTP is off the request path.
+        emailOutbox.enqueueVerificationEmail(user.getEmail(), verificationToken);
+        return user;
     }
 
     public AuthResponseDto login(LoginRequestDto request) {
@@ -73,53 +99,81 @@ public class AuthService {
                 )
         );
 
-        User user = userRepository.findByEmail(request.email())
-                .orElseThrow(() -> new InvalidAuthCredentialsException("Email or password is incorrect."));
+        // The token carries the verified flag: a replica that has not caught up with the verification must not decide it.
+        Optional<User> found = userRepository.findByEmail(request.email());
+        if (readReplicaProperties.isEnabled()) {
+            found = found.filter(User::isVerified)
+                    .or(() -> ReadConsistency.onPrimary(() -> userRepository.findByEmail(request.email())));
+        }
+        User user = found.orElseThrow(() -> new InvalidAuthCredentialsException("Email or password is incorrect."));
 
-        String token = jwtUtil.generateToken(user.getEmail());
+        String token = jwtUtil.generateToken(user.getEmail(), user.getRole(), user.isVerified());
+        String refreshToken = refreshTokenService.issue(user);
 
         return new AuthResponseDto(
                 token,
                 user.getEmail(),
                 user.getRole(),
-                "Logged in successfully!"
+                "Logged in successfully!",
+                refreshToken
         );
     }
 
+    public AuthResponseDto refresh(RefreshTokenRequestDto request) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.refreshToken());
+        User user = rotation.user();
+
+        if (!user.isVerified()) {
+            throw new InvalidAuthCredentialsException("User account is not verified. Please check your email.");
+        }
+
+        String token = jwtUtil.generateToken(user.getEmail(), user.getRole(), user.isVerified());
+
+        return new AuthResponseDto(
+                token,
+                user.getEmail(),
+                user.getRole(),
+                "Token refreshed successfully!",
+                rotation.refreshToken()
+        );
+    }
+
+    @Transactional
     public String forgetPassword(ForgetPasswordRequestDto request) {
         userRepository.findByEmail(request.email()).ifPresent(user -> {
-            String token = UUID.randomUUID().toString();
-            user.setPasswordResetToken(token);
-            user.setTokenExpiryDate(LocalDateTime.now().plusMinutes(20));
-            userRepository.save(user);
-            emailService.sendResetPasswordEmail(user.getEmail(), token);
+            // Only the newest reset link works.
+            oneTimeTokenService.revokeAll(user, TokenType.PASSWORD_RESET);
+            String token = oneTimeTokenService.issue(user, TokenType.PASSWORD_RESET);
+            emailOutbox.enqueueResetPasswordEmail(user.getEmail(), token);
         });
 
         return "If an account with that email exists, a password reset link has been sent.";
     }
 
     public String resetPassword(ResetPasswordRequestDto request) {
-        User user = userRepository.findByPasswordResetToken(request.token())
-                .orElseThrow(() -> new InvalidTokenException("Invalid or expired password reset token."));
+        // Hashed first: redeeming deletes the token row, whose lock would otherwise be held for the whole BCrypt run.
+        String passwordHash = passwordEncoder.encode(request.newPassword());
 
-        if (user.getTokenExpiryDate().isBefore(LocalDateTime.now())) {
-            throw new InvalidTokenException("Invalid or expired password reset token.");
-        }
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = oneTimeTokenService.redeem(request.token(), TokenType.PASSWORD_RESET)
+                    .orElseThrow(() -> new InvalidTokenException("Invalid or expired password reset token."));
 
-        user.setPassword(passwordEncoder.encode(request.newPassword()));
-        user.setPasswordResetToken(null);
-        user.setTokenExpiryDate(null);
-        userRepository.save(user);
+            user.setPassword(passwordHash);
+            userRepository.save(user);
+
+            // A new password ends every existing session.
+            refreshTokenService.revokeAll(user);
+        });
 
         return "Password has been successfully reset.";
     }
 
+    @Transactional
     public String verifyEmail(String token) {
-        User user = userRepository.findByEmailVerificationToken(token)
+        User user = oneTimeTokenService.redeem(token, TokenType.EMAIL_VERIFICATION)
                 .orElseThrow(() -> new InvalidTokenException("Invalid email verification token."));
 
         user.setVerified(true);
-        user.setEmailVerificationToken(null);
         userRepository.save(user);
 
         return "Email verified successfully!";
@@ -0,0 +1,47 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.AddressException;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+
+import java.io.IOException;
+
+/**
+ * Tells SMTP failures that retrying cannot fix from those that may clear up. Only a definite refusal is permanent:
+ * a 5xx reply or an address that does not parse. Everything else, like 4xx replies, dropped connections, timeouts
+ * and rejected logins, is assumed to be transient.
+ */
+final class DeliveryFailures {
+
+    private DeliveryFailures() {
+    }
+
+    static boolean isPermanent(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SMTPAddressFailedException refused) {
+                return isPermanentReply(refused.getReturnCode());
+            }
+            if (cause instanceof SMTPSendFailedException refused) {
+                return isPermanentReply(refused.getReturnCode());
+            }
+            if (cause instanceof AddressException) {
+                return true;
+            }
+            if (cause instanceof AuthenticationFailedException || cause instanceof IOException) {
+                // A wrong password or an unreachable server: not the email's fault.
+                return false;
+            }
+            if (cause instanceof SendFailedException sendFailed && sendFailed.getInvalidAddresses() != null
+                    && sendFailed.getInvalidAddresses().length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPermanentReply(int code) {
+        return code >= 500 && code < 600;
+    }
+}
@@ -0,0 +1,102 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.DeadLetterEmailNotFoundException;
+import com.simo.learnspringboot.learnspringboot.model.DeadLetterEmail;
+import com.simo.learnspringboot.learnspringboot.model.EmailType;
+import com.simo.learnspringboot.learnspringboot.model.OutboxEmail;
+import com.simo.learnspringboot.learnspringboot.model.TokenType;
+import com.simo.learnspringboot.learnspringboot.model.User;
+import com.simo.learnspringboot.learnspringboot.repository.DeadLetterEmailRepository;
+import com.simo.learnspringboot.learnspringboot.repository.OutboxEmailRepository;
+import com.simo.learnspringboot.learnspringboot.repository.UserRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Emails the dispatcher gave up on. Moving an email in or out of the dead-letter table and removing it from the
+ * other side happen in one transaction, so an email is never in both or in neither. The raw token an email links to
+ * is dropped when it is dead-lettered.
+ */
+@Service
+public class EmailDeadLetters {
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final DeadLetterEmailRepository deadLetterEmailRepository;
+    private final OutboxEmailRepository outboxEmailRepository;
+    private final UserRepository userRepository;
+    private final OneTimeTokenService oneTimeTokenService;
+
+    public EmailDeadLetters(DeadLetterEmailRepository deadLetterEmailRepository,
+                            OutboxEmailRepository outboxEmailRepository,
+                            UserRepository userRepository,
+                            OneTimeTokenService oneTimeTokenService) {
+        this.deadLetterEmailRepository = deadLetterEmailRepository;
+        this.outboxEmailRepository = outboxEmailRepository;
+        this.userRepository = userRepository;
+        this.oneTimeTokenService = oneTimeTokenService;
+    }
+
+    @Transactional
+    public void deadLetter(OutboxEmail email, String error, boolean permanent, Instant failedAt) {
+        DeadLetterEmail deadLetter = new DeadLetterEmail();
+        deadLetter.setId(email.getId());
+        deadLetter.setType(email.getType());
+        deadLetter.setRecipient(email.getRecipient());
+        deadLetter.setCreatedAt(email.getCreatedAt());
+        deadLetter.setFailedAt(failedAt);
+        deadLetter.setAttempts(email.getAttempts() + 1);
+        deadLetter.setPermanent(permanent);
+        deadLetter.setLastError(error);
+        deadLetterEmailRepository.save(deadLetter);
+        outboxEmailRepository.deleteAllByIdInBatch(List.of(email.getId()));
+    }
+
+    public List<DeadLetterEmail> list(int page, int size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        return deadLetterEmailRepository.findAllByOrderByFailedAtDesc(pageRequest).getContent();
+    }
+
+    /**
+     * Puts a dead-lettered email back into the outbox with a fresh retry budget and a freshly issued token, revoking
+     * the user's earlier ones; it goes out on the next pass. An email that is no longer needed, because the user is
+     * gone or already verified, is discarded instead.
+     */
+    @Transactional
+    public String replay(UUID id) {
+        DeadLetterEmail deadLetter = deadLetterEmailRepository.findById(id)
+                .orElseThrow(() -> new DeadLetterEmailNotFoundException("Dead-lettered email not found: " + id));
+        deadLetterEmailRepository.delete(deadLetter);
+
+        TokenType tokenType = tokenTypeOf(deadLetter.getType());
+        Optional<User> user = userRepository.findByEmail(deadLetter.getRecipient())
+                .filter(candidate -> tokenType != TokenType.EMAIL_VERIFICATION || !candidate.isVerified());
+        if (user.isEmpty()) {
+            return "Email to " + deadLetter.getRecipient() + " is no longer needed and has been discarded.";
+        }
+
+        oneTimeTokenService.revokeAll(user.get(), tokenType);
+        OutboxEmail email = new OutboxEmail();
+        email.setType(deadLetter.getType());
+        email.setRecipient(deadLetter.getRecipient());
+        email.setToken(oneTimeTokenService.issue(user.get(), tokenType));
+        email.setCreatedAt(deadLetter.getCreatedAt());
+        email.setNextAttemptAt(Instant.now());
+        outboxEmailRepository.save(email);
+
+        return "Email to " + deadLetter.getRecipient() + " has been queued again.";
+    }
+
+    private static TokenType tokenTypeOf(EmailType type) {
+        return switch (type) {
+            case VERIFICATION -> TokenType.EMAIL_VERIFICATION;
+            case PASSWORD_RESET -> TokenType.PASSWORD_RESET;
+        };
+    }
+}
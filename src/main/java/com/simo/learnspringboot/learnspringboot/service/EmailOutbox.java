@@ -0,0 +1,45 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import com.simo.learnspringboot.learnspringboot.model.EmailType;
+import com.simo.learnspringboot.learnspringboot.model.OutboxEmail;
+import com.simo.learnspringboot.learnspringboot.repository.OutboxEmailRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Queues emails in the caller's transaction: the email exists exactly when the user change that needs it commits.
+ * {@link EmailOutboxDispatcher} sends them in the background.
+ */
+@Service
+public class EmailOutbox {
+
+    private final OutboxEmailRepository outboxEmailRepository;
+
+    public EmailOutbox(OutboxEmailRepository outboxEmailRepository) {
+        this.outboxEmailRepository = outboxEmailRepository;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueVerificationEmail(String to, String token) {
+        enqueue(EmailType.VERIFICATION, to, token);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueResetPasswordEmail(String to, String token) {
+        enqueue(EmailType.PASSWORD_RESET, to, token);
+    }
+
+    private void enqueue(EmailType type, String to, String token) {
+        OutboxEmail email = new OutboxEmail();
+        email.setType(type);
+        email.setRecipient(to);
+        email.setToken(token);
+        Instant now = Instant.now();
+        email.setCreatedAt(now);
+        email.setNextAttemptAt(now);
+        outboxEmailRepository.save(email);
+    }
+}
@@ -0,0 +1,190 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import com.simo.learnspringboot.learnspringboot.config.EmailProperties;
+import com.simo.learnspringboot.learnspringboot.model.OutboxEmail;
+import com.simo.learnspringboot.learnspringboot.repository.OutboxEmailRepository;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Drains the email outbox in batches. A batch is split into {@code app.mail.outbox.concurrency} chunks that are sent
+ * in parallel, each over one pooled SMTP session from {@link SmtpTransportPool}; sent emails are then deleted in one
+ * statement.
+ * Failed emails stay in the outbox and are retried after a jittered, exponentially growing delay; an email the
+ * server refuses for good, or one that runs out of attempts, goes to the dead-letter table instead. Retries live in
+ * the database, not in memory: however long an SMTP outage lasts, a pass holds at most one batch and
+ * {@code concurrency} threads.
+ * <p>
+ * Assumes a single application instance: two dispatchers would pick up the same rows.
+ */
+@Component
+public class EmailOutboxDispatcher implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private final OutboxEmailRepository outboxEmailRepository;
+    private final EmailService emailService;
+    private final SmtpTransportPool smtpTransportPool;
+    private final EmailDeadLetters emailDeadLetters;
+    private final Clock clock;
+    private final int batchSize;
+    private final int concurrency;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final ExecutorService executor;
+
+    @Autowired
+    public EmailOutboxDispatcher(OutboxEmailRepository outboxEmailRepository,
+                                 EmailService emailService,
+                                 SmtpTransportPool smtpTransportPool,
+                                 EmailDeadLetters emailDeadLetters,
+                                 EmailProperties emailProperties) {
+        this(outboxEmailRepository, emailService, smtpTransportPool, emailDeadLetters, emailProperties, Clock.systemUTC());
+    }
+
+    EmailOutboxDispatcher(OutboxEmailRepository outboxEmailRepository,
+                          EmailService emailService,
+                          SmtpTransportPool smtpTransportPool,
+                          EmailDeadLetters emailDeadLetters,
+                          EmailProperties emailProperties,
+                          Clock clock) {
+        this.outboxEmailRepository = outboxEmailRepository;
+        this.emailService = emailService;
+        this.smtpTransportPool = smtpTransportPool;
+        this.emailDeadLetters = emailDeadLetters;
+        this.clock = clock;
+        EmailProperties.Outbox outbox = emailProperties.getOutbox();
+        this.batchSize = outbox.getBatchSize();
+        this.concurrency = outbox.getConcurrency();
+        this.maxAttempts = outbox.getMaxAttempts();
+        this.initialBackoffMillis = outbox.getInitialBackoff().toMillis();
+        this.maxBackoffMillis = outbox.getMaxBackoff().toMillis();
+        this.executor = Executors.newFixedThreadPool(concurrency,
+                new CustomizableThreadFactory("email-dispatch-"));
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval:PT1S}")
+    public void dispatchPending() {
+        // Keep going while full batches are sent, so a backlog does not wait a poll interval per batch.
+        while (dispatchBatch() == batchSize) {
+            log.debug("Outbox batch full, dispatching the next one");
+        }
+    }
+
+    /**
+     * Sends one batch and returns how many of its emails were sent.
+     */
+    int dispatchBatch() {
+        List<OutboxEmail> batch = outboxEmailRepository.findAllByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+                clock.instant(), PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // One chunk per SMTP session: each chunk goes out over a single pooled, already authenticated connection.
+        int chunkSize = (batch.size() + concurrency - 1) / concurrency;
+        List<CompletableFuture<List<UUID>>> sends = new ArrayList<>(concurrency);
+        for (int from = 0; from < batch.size(); from += chunkSize) {
+            List<OutboxEmail> chunk = batch.subList(from, Math.min(from + chunkSize, batch.size()));
+            sends.add(CompletableFuture.supplyAsync(() -> send(chunk), executor));
+        }
+
+        List<UUID> sent = new ArrayList<>(batch.size());
+        for (CompletableFuture<List<UUID>> send : sends) {
+            try {
+                sent.addAll(send.join());
+            } catch (CompletionException e) {
+                // The other chunks' emails did go out; deleting them keeps them from being sent twice. This
+                // chunk's emails stay in the outbox and are picked up again on the next pass.
+                log.error("Sending a chunk of the outbox failed", e.getCause());
+            }
+        }
+        if (!sent.isEmpty()) {
+            outboxEmailRepository.deleteAllByIdInBatch(sent);
+        }
+        return sent.size();
+    }
+
+    private List<UUID> send(List<OutboxEmail> chunk) {
+        Map<MimeMessage, OutboxEmail> messages = new LinkedHashMap<>();
+        for (OutboxEmail email : chunk) {
+            try {
+                messages.put(emailService.buildEmail(email.getType(), email.getRecipient(), email.getToken()), email);
+            } catch (RuntimeException e) {
+                // Rendering the same email again would fail the same way.
+                recordFailure(email, e, true);
+            }
+        }
+        if (messages.isEmpty()) {
+            return List.of();
+        }
+
+        Map<MimeMessage, Exception> failures = smtpTransportPool.send(new ArrayList<>(messages.keySet()));
+
+        List<UUID> sent = new ArrayList<>(messages.size());
+        messages.forEach((message, email) -> {
+            Exception failure = failures.get(message);
+            if (failure == null) {
+                sent.add(email.getId());
+            } else {
+                recordFailure(email, failure, DeliveryFailures.isPermanent(failure));
+            }
+        });
+        return sent;
+    }
+
+    private void recordFailure(OutboxEmail email, Exception e, boolean permanent) {
+        int attempt = email.getAttempts() + 1;
+        String error = abbreviate(String.valueOf(e.getMessage()));
+        if (permanent || attempt >= maxAttempts) {
+            log.error("Giving up on {} email {} after {} attempt(s), moving it to the dead-letter table",
+                    email.getType(), email.getId(), attempt, e);
+            emailDeadLetters.deadLetter(email, error, permanent, clock.instant());
+        } else {
+            Instant nextAttemptAt = clock.instant().plusMillis(backoffMillis(attempt));
+            log.warn("Sending {} email {} failed (attempt {}), retrying at {}",
+                    email.getType(), email.getId(), attempt, nextAttemptAt, e);
+            outboxEmailRepository.recordFailure(email.getId(), error, nextAttemptAt);
+        }
+    }
+
+    /**
+     * Exponential backoff with "equal jitter": half of the delay is fixed, the other half random, so retries of
+     * emails that failed together during an outage spread out instead of hitting the server again at once.
+     */
+    long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 30));
+        long half = ceiling / 2;
+        return half + ThreadLocalRandom.current().nextLong(ceiling - half + 1);
+    }
+
+    private static String abbreviate(String message) {
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
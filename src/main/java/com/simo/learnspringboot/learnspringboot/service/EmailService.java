@@ -1,91 +1,60 @@
 package com.simo.learnspringboot.learnspringboot.service;
 
+import com.simo.learnspringboot.learnspringboot.config.EmailProperties;
+import com.simo.learnspringboot.learnspringboot.model.EmailType;
+import com.simo.learnspringboot.learnspringboot.service.EmailTemplateRenderer.RenderedEmail;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
-import org.springframework.mail.MailException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.util.Locale;
+
 @Service
 public class EmailService {
     private final JavaMailSender javaMailSender;
+    private final EmailTemplateRenderer templateRenderer;
+    private final Locale locale;
 
-    EmailService(JavaMailSender javaMailSender) {
+    EmailService(JavaMailSender javaMailSender, EmailTemplateRenderer templateRenderer, EmailProperties emailProperties) {
         this.javaMailSender = javaMailSender;
+        this.templateRenderer = templateRenderer;
+        this.locale = emailProperties.getLocale();
     }
 
-    public void sendResetPasswordEmail(String to, String token) {
-        try {
-            MimeMessage message = javaMailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-            helper.setTo(to);
-            helper.setSubject("🔐 Password Reset Request");
-
-            String resetUrl = "http://localhost:8080/api/auth/reset-password?token=" + token;
-
-            String htmlContent = """
-                <html>
-                    <body style="font-family: Arial, sans-serif; line-height:1.6; color:#333;">
-                        <h2 style="color:#2E86C1;">Password Reset Request</h2>
-                        <p>We received a request to reset your password. Click the button below to reset it:</p>
-                        <p style="text-align:center;">
-                            <a href="%s" 
-                               style="background-color:#2E86C1; color:white; padding:10px 20px; text-decoration:none; border-radius:5px;">
-                               Reset Password
-                            </a>
-                        </p>
-                        <p>If you did not request a password reset, please ignore this email.</p>
-                        <hr>
-                        <p style="font-size:12px; color:#888;">This is an automated message. Do not reply.</p>
-                    </body>
-                </html>
-            """.formatted(resetUrl);
-
-            helper.setText(htmlContent, true); // "true" enables HTML
+    /**
+     * Builds the email for the given outbox type without sending it, so it can go out in a batch.
+     */
+    public MimeMessage buildEmail(EmailType type, String to, String token) {
+        return switch (type) {
+            case VERIFICATION -> buildVerificationEmail(to, token);
+            case PASSWORD_RESET -> buildResetPasswordEmail(to, token);
+        };
+    }
 
-            javaMailSender.send(message);
+    private MimeMessage buildResetPasswordEmail(String to, String token) {
+        return buildEmail(to, templateRenderer.render(EmailType.PASSWORD_RESET, token, locale));
+    }
 
-        } catch (MailException | MessagingException e) {
-            throw new RuntimeException("Failed to send email", e);
-        }
+    private MimeMessage buildVerificationEmail(String to, String token) {
+        return buildEmail(to, templateRenderer.render(EmailType.VERIFICATION, token, locale));
     }
 
-    public void sendVerificationEmail(String to, String token) {
+    private MimeMessage buildEmail(String to, RenderedEmail email) {
         try {
             MimeMessage message = javaMailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
+            // No attachments or inline images: a single text/html part is all the email needs.
+            MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
 
             helper.setTo(to);
-            helper.setSubject("✅ Verify Your Email Address");
-
-            String verifyUrl = "http://localhost:8080/api/auth/verify-email?token=" + token;
-
-            String htmlContent = """
-                <html>
-                    <body style="font-family: Arial, sans-serif; line-height:1.6; color:#333;">
-                        <h2 style="color:#28B463;">Email Verification</h2>
-                        <p>Thank you for registering! Please verify your email address by clicking the button below:</p>
-                        <p style="text-align:center;">
-                            <a href="%s" 
-                               style="background-color:#28B463; color:white; padding:10px 20px; text-decoration:none; border-radius:5px;">
-                               Verify Email
-                            </a>
-                        </p>
-                        <p>If you did not create an account, please ignore this email.</p>
-                        <hr>
-                        <p style="font-size:12px; color:#888;">This is an automated message. Do not reply.</p>
-                    </body>
-                </html>
-            """.formatted(verifyUrl);
-
-            helper.setText(htmlContent, true); // "true" enables HTML
+            helper.setSubject(email.subject());
+            helper.setText(email.html(), true); // "true" enables HTML
 
-            javaMailSender.send(message);
+            return message;
 
-        } catch (MailException | MessagingException e) {
-            throw new RuntimeException("Failed to send email", e);
+        } catch (MessagingException e) {
+            throw new RuntimeException("Failed to build email", e);
         }
     }
 }
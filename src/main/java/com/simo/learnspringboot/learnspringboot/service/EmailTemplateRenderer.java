@@ -0,0 +1,57 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import com.simo.learnspringboot.learnspringboot.config.EmailProperties;
+import com.simo.learnspringboot.learnspringboot.model.EmailType;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.util.Locale;
+
+/**
+ * Renders the transactional emails from the Thymeleaf templates under {@code templates/email}. The engine parses
+ * each template once and caches it; texts and subjects come from {@code messages*.properties}, so a locale only
+ * changes the message lookup, not the cached template.
+ */
+@Component
+public class EmailTemplateRenderer {
+
+    private final ITemplateEngine templateEngine;
+    private final MessageSource messageSource;
+    private final String verificationUrl;
+    private final String passwordResetUrl;
+
+    public EmailTemplateRenderer(ITemplateEngine templateEngine, MessageSource messageSource, EmailProperties emailProperties) {
+        this.templateEngine = templateEngine;
+        this.messageSource = messageSource;
+        String baseUrl = stripTrailingSlash(emailProperties.getBaseUrl());
+        this.verificationUrl = baseUrl + "/api/auth/verify-email?token=";
+        this.passwordResetUrl = baseUrl + "/api/auth/reset-password?token=";
+    }
+
+    public RenderedEmail render(EmailType type, String token, Locale locale) {
+        Context context = new Context(locale);
+        return switch (type) {
+            case VERIFICATION -> {
+                context.setVariable("actionUrl", verificationUrl + token);
+                yield new RenderedEmail(
+                        messageSource.getMessage("email.verification.subject", null, locale),
+                        templateEngine.process("email/verification", context));
+            }
+            case PASSWORD_RESET -> {
+                context.setVariable("actionUrl", passwordResetUrl + token);
+                yield new RenderedEmail(
+                        messageSource.getMessage("email.password-reset.subject", null, locale),
+                        templateEngine.process("email/password-reset", context));
+            }
+        };
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    public record RenderedEmail(String subject, String html) {
+    }
+}
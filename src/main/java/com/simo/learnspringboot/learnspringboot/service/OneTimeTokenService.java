@@ -0,0 +1,84 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import com.simo.learnspringboot.learnspringboot.config.OneTimeTokenProperties;
+import com.simo.learnspringboot.learnspringboot.model.OneTimeToken;
+import com.simo.learnspringboot.learnspringboot.model.TokenType;
+import com.simo.learnspringboot.learnspringboot.model.User;
+import com.simo.learnspringboot.learnspringboot.repository.OneTimeTokenRepository;
+import com.simo.learnspringboot.learnspringboot.security.TokenDigests;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Issues and redeems the tokens behind the verification and password reset links. Only their SHA-256 digest is
+ * stored, so redeeming one is a single unique-index probe, and a token can be redeemed once.
+ */
+@Service
+public class OneTimeTokenService {
+
+    private final OneTimeTokenRepository oneTimeTokenRepository;
+    private final OneTimeTokenProperties properties;
+    private final Clock clock;
+
+    @Autowired
+    public OneTimeTokenService(OneTimeTokenRepository oneTimeTokenRepository, OneTimeTokenProperties properties) {
+        this(oneTimeTokenRepository, properties, Clock.systemUTC());
+    }
+
+    OneTimeTokenService(OneTimeTokenRepository oneTimeTokenRepository, OneTimeTokenProperties properties,
+                        Clock clock) {
+        this.oneTimeTokenRepository = oneTimeTokenRepository;
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    /**
+     * Stores a new token for the user and returns its raw value for the email.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public String issue(User user, TokenType type) {
+        String rawToken = TokenDigests.newOpaqueToken();
+
+        OneTimeToken token = new OneTimeToken();
+        token.setTokenHash(TokenDigests.sha256(rawToken));
+        token.setType(type);
+        token.setUser(user);
+        token.setExpiresAt(clock.instant().plus(ttl(type)));
+        oneTimeTokenRepository.save(token);
+
+        return rawToken;
+    }
+
+    /**
+     * Invalidates the user's outstanding tokens of this type, e.g. the previous reset link when a new one is sent.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void revokeAll(User user, TokenType type) {
+        oneTimeTokenRepository.deleteAllByUserAndType(user, type);
+    }
+
+    /**
+     * Uses up the token and returns its user, or empty if it is unknown, of another type, expired or already used.
+     */
+    @Transactional
+    public Optional<User> redeem(String rawToken, TokenType type) {
+        return oneTimeTokenRepository.findByTokenHashAndType(TokenDigests.sha256(rawToken), type)
+                .filter(token -> token.getExpiresAt().isAfter(clock.instant()))
+                // Whoever deletes the row first wins; a concurrent redeem of the same token finds nothing to delete.
+                .filter(token -> oneTimeTokenRepository.deleteByIdReturningCount(token.getId()) == 1)
+                .map(OneTimeToken::getUser);
+    }
+
+    private Duration ttl(TokenType type) {
+        return switch (type) {
+            case EMAIL_VERIFICATION -> properties.getEmailVerificationTtl();
+            case PASSWORD_RESET -> properties.getPasswordResetTtl();
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import com.simo.learnspringboot.learnspringboot.config.JwtProperties;
+import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.InvalidTokenException;
+import com.simo.learnspringboot.learnspringboot.model.RefreshToken;
+import com.simo.learnspringboot.learnspringboot.model.User;
+import com.simo.learnspringboot.learnspringboot.repository.RefreshTokenRepository;
+import com.simo.learnspringboot.learnspringboot.security.TokenDigests;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Issues and rotates opaque refresh tokens. Every refresh consumes the presented token and issues a new one
+ * in the same family; presenting an already consumed token is treated as theft and revokes the whole family.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final String INVALID_REFRESH_TOKEN = "Invalid or expired refresh token.";
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtProperties jwtProperties;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, JwtProperties jwtProperties) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.jwtProperties = jwtProperties;
+    }
+
+    public record Rotation(User user, String refreshToken) {}
+
+    /**
+     * Starts a new token family for a fresh login and returns the raw token for the client.
+     */
+    @Transactional
+    public String issue(User user) {
+        return issue(user, UUID.randomUUID());
+    }
+
+    /**
+     * Consumes the presented refresh token and returns its owner together with the next token of the family.
+     */
+    @Transactional(noRollbackFor = InvalidTokenException.class)
+    public Rotation rotate(String rawToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenHash(TokenDigests.sha256(rawToken))
+                .orElseThrow(() -> new InvalidTokenException(INVALID_REFRESH_TOKEN));
+
+        Instant now = Instant.now();
+        if (current.getUsedAt() != null || current.getRevokedAt() != null) {
+            // Reuse detection: a consumed token came back, so whoever holds the family is not trusted anymore.
+            throw reused(current, now);
+        }
+        if (!current.getExpiresAt().isAfter(now)) {
+            throw new InvalidTokenException(INVALID_REFRESH_TOKEN);
+        }
+        // Whoever marks the token used first wins; a concurrent rotation of the same token that lost is a reuse too,
+        // rather than a second branch of the family.
+        if (refreshTokenRepository.markUsed(current.getId(), now) != 1) {
+            throw reused(current, now);
+        }
+
+        User user = current.getUser();
+        return new Rotation(user, issue(user, current.getFamilyId()));
+    }
+
+    @Transactional
+    public void revokeAll(User user) {
+        refreshTokenRepository.revokeAllForUser(user, Instant.now());
+    }
+
+    private InvalidTokenException reused(RefreshToken token, Instant now) {
+        refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+        return new InvalidTokenException(INVALID_REFRESH_TOKEN);
+    }
+
+    private String issue(User user, UUID familyId) {
+        String rawToken = TokenDigests.newOpaqueToken();
+        Instant now = Instant.now();
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(TokenDigests.sha256(rawToken));
+        refreshToken.setFamilyId(familyId);
+        refreshToken.setUser(user);
+        refreshToken.setCreatedAt(now);
+        refreshToken.setExpiresAt(now.plus(jwtProperties.getRefreshTokenTtl()));
+        refreshTokenRepository.save(refreshToken);
+
+        return rawToken;
+    }
+}
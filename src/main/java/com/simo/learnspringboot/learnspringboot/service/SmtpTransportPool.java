@@ -0,0 +1,239 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import com.simo.learnspringboot.learnspringboot.config.EmailProperties;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Keeps a few connected and authenticated SMTP sessions open, so a batch of emails pays the TCP, TLS and AUTH
+ * handshakes once instead of once per message. At most {@code app.mail.outbox.concurrency} sessions exist at a
+ * time. Sessions idle for longer than {@code app.mail.smtp.idle-timeout} are closed, and a session the server has
+ * dropped is reconnected once before a message is given up on.
+ */
+@Component
+public class SmtpTransportPool implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SmtpTransportPool.class);
+
+    private final JavaMailSenderImpl mailSender;
+    private final Duration idleTimeout;
+    private final Clock clock;
+    private final Semaphore permits;
+    // Most recently used first, so the warm sessions are reused and the cold ones age out.
+    private final Deque<PooledTransport> idle = new ConcurrentLinkedDeque<>();
+
+    @Autowired
+    public SmtpTransportPool(JavaMailSenderImpl mailSender, EmailProperties emailProperties) {
+        this(mailSender, emailProperties, Clock.systemUTC());
+    }
+
+    SmtpTransportPool(JavaMailSenderImpl mailSender, EmailProperties emailProperties, Clock clock) {
+        this.mailSender = mailSender;
+        this.idleTimeout = emailProperties.getSmtp().getIdleTimeout();
+        this.clock = clock;
+        this.permits = new Semaphore(emailProperties.getOutbox().getConcurrency());
+    }
+
+    /**
+     * Sends the messages over one pooled session, in order.
+     *
+     * @return the messages that could not be sent, with the reason; empty when all of them went out
+     */
+    public Map<MimeMessage, Exception> send(List<MimeMessage> messages) {
+        Map<MimeMessage, Exception> failures = new IdentityHashMap<>();
+        permits.acquireUninterruptibly();
+        PooledTransport session = null;
+        try {
+            session = borrow();
+            for (int i = 0; i < messages.size(); i++) {
+                MimeMessage message = messages.get(i);
+                PooledTransport next = sendWithReconnect(session, message, failures);
+                if (next == null) {
+                    // The session is gone and reconnecting did not bring it back: the rest cannot go out either.
+                    session = null;
+                    Exception cause = failures.get(message);
+                    messages.subList(i + 1, messages.size()).forEach(rest -> failures.put(rest, cause));
+                    break;
+                }
+                session = next;
+            }
+        } catch (MessagingException e) {
+            // No session at all: nothing in this batch can go out.
+            messages.forEach(message -> failures.put(message, e));
+        } finally {
+            if (session != null) {
+                release(session);
+            }
+            permits.release();
+        }
+        return failures;
+    }
+
+    /**
+     * Closes sessions that have been idle for longer than the idle timeout.
+     */
+    @Scheduled(fixedDelayString = "${app.mail.smtp.idle-timeout:PT30S}")
+    public void evictIdle() {
+        Instant now = clock.instant();
+        idle.removeIf(session -> {
+            if (session.isExpired(now)) {
+                session.close();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    int idleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Sends one message, reconnecting once if the server dropped the session. A message that could not be sent is
+     * added to the failures.
+     *
+     * @return the connected session to send the rest of the batch over, or null, already closed, when the
+     * connection is lost for good
+     */
+    private PooledTransport sendWithReconnect(PooledTransport session, MimeMessage message,
+                                              Map<MimeMessage, Exception> failures) {
+        try {
+            prepare(message);
+            session.transport.sendMessage(message, message.getAllRecipients());
+            return session;
+        } catch (MessagingException | IllegalStateException e) {
+            // A transport that already knows it is closed throws IllegalStateException rather than reconnecting.
+            if (session.transport.isConnected()) {
+                // The session is fine, the message itself was refused.
+                failures.put(message, e);
+                return session;
+            }
+            log.debug("SMTP session was dropped, reconnecting", e);
+        }
+        session.close();
+        PooledTransport fresh;
+        try {
+            fresh = connect();
+        } catch (MessagingException e) {
+            failures.put(message, e);
+            return null;
+        }
+        try {
+            fresh.transport.sendMessage(message, message.getAllRecipients());
+            return fresh;
+        } catch (MessagingException | IllegalStateException e) {
+            failures.put(message, e);
+            if (fresh.transport.isConnected()) {
+                return fresh;
+            }
+            fresh.close();
+            return null;
+        }
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        Instant now = clock.instant();
+        PooledTransport session;
+        while ((session = idle.pollFirst()) != null) {
+            if (!session.isExpired(now) && session.transport.isConnected()) {
+                return session;
+            }
+            session.close();
+        }
+        return connect();
+    }
+
+    private void release(PooledTransport session) {
+        if (session.transport.isConnected()) {
+            session.lastUsed = clock.instant();
+            idle.offerFirst(session);
+        } else {
+            session.close();
+        }
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        // Same connection parameters JavaMailSenderImpl uses for its own one-shot sessions.
+        String username = mailSender.getUsername();
+        String password = mailSender.getPassword();
+        if ("".equals(username)) {
+            username = null;
+            if ("".equals(password)) {
+                password = null;
+            }
+        }
+        Session session = mailSender.getSession();
+        String protocol = mailSender.getProtocol();
+        if (protocol == null) {
+            protocol = session.getProperty("mail.transport.protocol");
+            if (protocol == null) {
+                protocol = JavaMailSenderImpl.DEFAULT_PROTOCOL;
+            }
+        }
+        Transport transport = session.getTransport(protocol);
+        transport.connect(mailSender.getHost(), mailSender.getPort(), username, password);
+        return new PooledTransport(transport, clock.instant());
+    }
+
+    // What JavaMailSenderImpl does before every send: set a date and compute the final headers.
+    private static void prepare(MimeMessage message) throws MessagingException {
+        if (message.getSentDate() == null) {
+            message.setSentDate(new Date());
+        }
+        String messageId = message.getMessageID();
+        message.saveChanges();
+        if (messageId != null) {
+            message.setHeader("Message-ID", messageId);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        PooledTransport session;
+        while ((session = idle.pollFirst()) != null) {
+            session.close();
+        }
+    }
+
+    private final class PooledTransport {
+        private final Transport transport;
+        private Instant lastUsed;
+
+        private PooledTransport(Transport transport, Instant lastUsed) {
+            this.transport = transport;
+            this.lastUsed = lastUsed;
+        }
+
+        private boolean isExpired(Instant now) {
+            return !lastUsed.plus(idleTimeout).isAfter(now);
+        }
+
+        private void close() {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Closing SMTP session failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import com.simo.learnspringboot.learnspringboot.config.SweeperProperties;
+import com.simo.learnspringboot.learnspringboot.model.User;
+import com.simo.learnspringboot.learnspringboot.model.UserChangedEvent;
+import com.simo.learnspringboot.learnspringboot.repository.OneTimeTokenRepository;
+import com.simo.learnspringboot.learnspringboot.repository.RefreshTokenRepository;
+import com.simo.learnspringboot.learnspringboot.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Deletes expired one-time tokens and accounts that were never verified. Rows go in chunks of
+ * {@code app.sweeper.chunk-size}, one short transaction per chunk with a pause in between, so a large backlog is
+ * worked off without long-held locks or a burst of writes competing with logins. Rows deleted and chunk durations
+ * are published as {@code sweeper.rows} and {@code sweeper.chunk}, tagged with what was swept.
+ */
+@Component
+public class StaleDataSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(StaleDataSweeper.class);
+
+    private final OneTimeTokenRepository oneTimeTokenRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final boolean enabled;
+    private final int chunkSize;
+    private final Duration pause;
+    private final Duration unverifiedAccountTtl;
+
+    @Autowired
+    public StaleDataSweeper(OneTimeTokenRepository oneTimeTokenRepository,
+                            RefreshTokenRepository refreshTokenRepository,
+                            UserRepository userRepository,
+                            ApplicationEventPublisher eventPublisher,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            SweeperProperties properties) {
+        this(oneTimeTokenRepository, refreshTokenRepository, userRepository, eventPublisher, transactionManager,
+                meterRegistry, properties, Clock.systemUTC());
+    }
+
+    StaleDataSweeper(OneTimeTokenRepository oneTimeTokenRepository,
+                     RefreshTokenRepository refreshTokenRepository,
+                     UserRepository userRepository,
+                     ApplicationEventPublisher eventPublisher,
+                     PlatformTransactionManager transactionManager,
+                     MeterRegistry meterRegistry,
+                     SweeperProperties properties,
+                     Clock clock) {
+        this.oneTimeTokenRepository = oneTimeTokenRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.enabled = properties.isEnabled();
+        this.chunkSize = properties.getChunkSize();
+        this.pause = properties.getPause();
+        this.unverifiedAccountTtl = properties.getUnverifiedAccountTtl();
+    }
+
+    @Scheduled(fixedDelayString = "${app.sweeper.interval:PT10M}", initialDelayString = "${app.sweeper.interval:PT10M}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        int tokens = sweepExpiredTokens();
+        int users = sweepUnverifiedUsers();
+        if (tokens > 0 || users > 0) {
+            log.info("Swept {} expired token(s) and {} unverified account(s)", tokens, users);
+        }
+    }
+
+    int sweepExpiredTokens() {
+        Instant now = clock.instant();
+        return sweepInChunks("expired-tokens", status -> {
+            List<UUID> ids = oneTimeTokenRepository.findExpiredIds(now, PageRequest.of(0, chunkSize));
+            if (!ids.isEmpty()) {
+                oneTimeTokenRepository.deleteAllByIdInBatch(ids);
+            }
+            return ids.size();
+        });
+    }
+
+    int sweepUnverifiedUsers() {
+        Instant cutoff = clock.instant().minus(unverifiedAccountTtl);
+        return sweepInChunks("unverified-users", status -> {
+            // Locked until this chunk commits, so every row picked here is still unverified when it is deleted and
+            // the tokens and events below are for exactly the deleted accounts.
+            List<User> users = userRepository.findAllByVerifiedFalseAndCreatedAtBefore(cutoff,
+                    PageRequest.of(0, chunkSize, Sort.by("createdAt")));
+            if (users.isEmpty()) {
+                return 0;
+            }
+            List<UUID> ids = users.stream().map(User::getId).toList();
+            oneTimeTokenRepository.deleteAllByUserIdIn(ids);
+            refreshTokenRepository.deleteAllByUserIdIn(ids);
+            userRepository.deleteAllByIdInBatch(ids);
+            // Bulk deletes skip the entity listener; the cached UserDetails are evicted once this chunk commits.
+            users.forEach(user -> eventPublisher.publishEvent(new UserChangedEvent(user.getEmail())));
+            return users.size();
+        });
+    }
+
+    private int sweepInChunks(String kind, TransactionCallback<Integer> deleteChunk) {
+        Counter rows = Counter.builder("sweeper.rows").tag("kind", kind).register(meterRegistry);
+        Timer chunks = Timer.builder("sweeper.chunk").tag("kind", kind).register(meterRegistry);
+
+        int total = 0;
+        while (true) {
+            Integer deleted = chunks.record(() -> transactionTemplate.execute(deleteChunk));
+            rows.increment(deleted);
+            total += deleted;
+            // A partial chunk means nothing is left.
+            if (deleted < chunkSize || !pause()) {
+                return total;
+            }
+        }
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
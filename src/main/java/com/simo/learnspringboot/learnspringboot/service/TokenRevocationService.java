@@ -0,0 +1,51 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.InvalidTokenException;
+import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.UserNotFoundException;
+import com.simo.learnspringboot.learnspringboot.model.User;
+import com.simo.learnspringboot.learnspringboot.repository.UserRepository;
+import com.simo.learnspringboot.learnspringboot.security.JwtUtil;
+import com.simo.learnspringboot.learnspringboot.security.TokenClaims;
+import com.simo.learnspringboot.learnspringboot.security.TokenRevocationList;
+import org.springframework.stereotype.Service;
+
+@Service
+public class TokenRevocationService {
+
+    private final TokenRevocationList revocationList;
+    private final RefreshTokenService refreshTokenService;
+    private final UserRepository userRepository;
+    private final JwtUtil jwtUtil;
+
+    public TokenRevocationService(TokenRevocationList revocationList,
+                                  RefreshTokenService refreshTokenService,
+                                  UserRepository userRepository,
+                                  JwtUtil jwtUtil) {
+        this.revocationList = revocationList;
+        this.refreshTokenService = refreshTokenService;
+        this.userRepository = userRepository;
+        this.jwtUtil = jwtUtil;
+    }
+
+    public String revokeToken(String token) {
+        // An expired or forged token needs no revocation, and a token without an id can only be revoked per user.
+        TokenClaims claims = jwtUtil.verifyToken(token)
+                .filter(verified -> verified.jti() != null)
+                .orElseThrow(() -> new InvalidTokenException("Invalid or expired token."));
+
+        revocationList.revoke(claims.jti(), claims.expiresAt());
+
+        return "Token has been revoked.";
+    }
+
+    public String revokeAllForUser(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new UserNotFoundException("User not found: " + email));
+
+        // Without the refresh tokens the user could mint a new access token right away.
+        refreshTokenService.revokeAll(user);
+        revocationList.revokeAllIssuedBefore(user.getEmail());
+
+        return "All tokens of " + user.getEmail() + " have been revoked.";
+    }
+}
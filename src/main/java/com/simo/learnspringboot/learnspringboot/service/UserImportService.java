@@ -0,0 +1,312 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.simo.learnspringboot.learnspringboot.config.UserImportProperties;
+import com.simo.learnspringboot.learnspringboot.dto.RegisterRequestDto;
+import com.simo.learnspringboot.learnspringboot.dto.UserImportReportDto;
+import com.simo.learnspringboot.learnspringboot.dto.UserImportReportDto.RowError;
+import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.InvalidImportException;
+import com.simo.learnspringboot.learnspringboot.model.TokenType;
+import com.simo.learnspringboot.learnspringboot.model.User;
+import com.simo.learnspringboot.learnspringboot.repository.UserRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Registers many users from one streamed NDJSON or CSV body. The body is read a chunk of rows at a time: every row
+ * is validated like a registration, the chunk's emails are checked against the database with one query, the
+ * passwords are hashed in parallel and the users and their verification emails are inserted in JDBC batches in a
+ * single transaction. A bad row is reported with its line number and skipped; it never aborts the import.
+ * <p>
+ * Imported users are always plain users: the admin promotion of {@link AuthService#register} does not apply here.
+ */
+@Service
+public class UserImportService implements DisposableBean {
+
+    static final String DUPLICATE_IN_IMPORT = "email appears more than once in the import";
+    static final String EMAIL_IN_USE = "Email already in use!";
+
+    private static final List<String> CSV_COLUMNS = List.of("name", "email", "password");
+
+    public enum Format { NDJSON, CSV }
+
+    private final UserRepository userRepository;
+    private final EmailOutbox emailOutbox;
+    private final OneTimeTokenService oneTimeTokenService;
+    private final PasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final ObjectReader rowReader;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService hashingPool;
+    private final int chunkSize;
+
+    public UserImportService(UserRepository userRepository,
+                             EmailOutbox emailOutbox,
+                             OneTimeTokenService oneTimeTokenService,
+                             PasswordEncoder passwordEncoder,
+                             Validator validator,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager,
+                             UserImportProperties properties) {
+        this.userRepository = userRepository;
+        this.emailOutbox = emailOutbox;
+        this.oneTimeTokenService = oneTimeTokenService;
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+        this.rowReader = objectMapper.readerFor(RegisterRequestDto.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hashingPool = Executors.newFixedThreadPool(properties.getHashingThreads(),
+                new CustomizableThreadFactory("user-import-"));
+        this.chunkSize = properties.getChunkSize();
+    }
+
+    public UserImportReportDto importUsers(InputStream body, Format format) {
+        Import run = new Import();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            RowParser parser = format == Format.CSV ? csvParser(reader.readLine()) : this::parseJson;
+            int lineNumber = format == Format.CSV ? 1 : 0;
+            List<ParsedRow> chunk = new ArrayList<>(chunkSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                chunk.add(parse(parser, lineNumber, line));
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, run);
+                    chunk.clear();
+                }
+            }
+            importChunk(chunk, run);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the import", e);
+        }
+        run.errors.sort(Comparator.comparingInt(RowError::line));
+        return new UserImportReportDto(run.rows, run.imported, run.errors);
+    }
+
+    private void importChunk(List<ParsedRow> chunk, Import run) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        run.rows += chunk.size();
+
+        List<ParsedRow> candidates = new ArrayList<>(chunk.size());
+        for (ParsedRow row : chunk) {
+            if (row.errors != null) {
+                run.reject(row, row.errors);
+            } else if (!run.seenEmails.add(row.request.email())) {
+                run.reject(row, List.of(DUPLICATE_IN_IMPORT));
+            } else {
+                candidates.add(row);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        Set<String> existing = userRepository.findExistingEmails(
+                candidates.stream().map(row -> row.request.email()).toList());
+        List<CompletableFuture<User>> hashing = new ArrayList<>(candidates.size());
+        List<ParsedRow> accepted = new ArrayList<>(candidates.size());
+        for (ParsedRow row : candidates) {
+            if (existing.contains(row.request.email())) {
+                run.reject(row, List.of(EMAIL_IN_USE));
+            } else {
+                accepted.add(row);
+                hashing.add(CompletableFuture.supplyAsync(() -> newUser(row.request), hashingPool));
+            }
+        }
+        List<User> users = hashing.stream().map(CompletableFuture::join).toList();
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(users));
+            run.imported += users.size();
+        } catch (DataIntegrityViolationException e) {
+            // Someone registered one of these emails since the check above; find out which, one row at a time.
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                // The rolled-back insert already gave it an id; persist it as new again.
+                user.setId(null);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(user)));
+                    run.imported++;
+                } catch (DataIntegrityViolationException duplicate) {
+                    run.reject(accepted.get(i), List.of(EMAIL_IN_USE));
+                }
+            }
+        }
+    }
+
+    private void insert(List<User> users) {
+        // Ids are generated in memory, so hibernate.jdbc.batch_size and order_inserts batch every table at flush.
+        userRepository.saveAll(users);
+        for (User user : users) {
+            String token = oneTimeTokenService.issue(user, TokenType.EMAIL_VERIFICATION);
+            emailOutbox.enqueueVerificationEmail(user.getEmail(), token);
+        }
+    }
+
+    private User newUser(RegisterRequestDto request) {
+        User user = new User();
+        user.setName(request.name());
+        user.setEmail(request.email());
+        user.setPassword(passwordEncoder.encode(request.password()));
+        user.setVerified(false);
+        user.setRole("ROLE_USER");
+        return user;
+    }
+
+    private ParsedRow parse(RowParser parser, int lineNumber, String line) {
+        RegisterRequestDto request;
+        try {
+            request = parser.parse(line);
+        } catch (MalformedRowException e) {
+            return new ParsedRow(lineNumber, null, List.of(e.getMessage()));
+        }
+        Set<ConstraintViolation<RegisterRequestDto>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return new ParsedRow(lineNumber, request, null);
+        }
+        List<String> messages = violations.stream()
+                .sorted(Comparator.comparing((ConstraintViolation<?> v) -> v.getPropertyPath().toString())
+                        .thenComparing(ConstraintViolation::getMessage))
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .toList();
+        return new ParsedRow(lineNumber, request, messages);
+    }
+
+    private RegisterRequestDto parseJson(String line) {
+        try {
+            RegisterRequestDto request = rowReader.readValue(line);
+            if (request == null) {
+                throw new MalformedRowException("row is not a JSON object");
+            }
+            return request;
+        } catch (JsonProcessingException e) {
+            throw new MalformedRowException("row is not valid JSON");
+        }
+    }
+
+    private RowParser csvParser(String header) {
+        if (header == null) {
+            throw new InvalidImportException("The CSV import is empty; expected a header row with " + CSV_COLUMNS);
+        }
+        List<String> names;
+        try {
+            names = splitCsv(header).stream().map(name -> name.trim().toLowerCase(Locale.ROOT)).toList();
+        } catch (MalformedRowException e) {
+            throw new InvalidImportException("The CSV header is malformed: " + e.getMessage());
+        }
+        Map<String, Integer> index = new HashMap<>();
+        for (String column : CSV_COLUMNS) {
+            int position = names.indexOf(column);
+            if (position < 0) {
+                throw new InvalidImportException("The CSV header must name the columns " + CSV_COLUMNS);
+            }
+            index.put(column, position);
+        }
+        return line -> {
+            List<String> fields = splitCsv(line);
+            if (fields.size() != names.size()) {
+                throw new MalformedRowException("expected " + names.size() + " columns but found " + fields.size());
+            }
+            return new RegisterRequestDto(fields.get(index.get("name")), fields.get(index.get("email")),
+                    fields.get(index.get("password")));
+        };
+    }
+
+    /**
+     * Splits one RFC 4180 record: fields may be quoted, and a doubled quote inside quotes is a literal quote.
+     * Quoted line breaks are not supported; every record is a single line.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c != '\r') {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new MalformedRowException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public void destroy() {
+        hashingPool.shutdown();
+    }
+
+    @FunctionalInterface
+    private interface RowParser {
+        RegisterRequestDto parse(String line);
+    }
+
+    private record ParsedRow(int line, RegisterRequestDto request, List<String> errors) {
+    }
+
+    private static class MalformedRowException extends RuntimeException {
+        MalformedRowException(String message) {
+            super(message);
+        }
+    }
+
+    // Running totals of one import.
+    private static class Import {
+        private final Set<String> seenEmails = new HashSet<>();
+        private final List<RowError> errors = new ArrayList<>();
+        private int rows;
+        private int imported;
+
+        private void reject(ParsedRow row, List<String> messages) {
+            errors.add(new RowError(row.line, row.request == null ? null : row.request.email(), messages));
+        }
+    }
+}
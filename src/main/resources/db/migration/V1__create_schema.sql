@@ -0,0 +1,77 @@
+-- Schema as of the switch from ddl-auto to migrations. Enum columns are plain varchars, so the scripts run unchanged
+-- on H2 and on a server database.
+
+create table users (
+    id         uuid         not null,
+    verified   boolean      not null,
+    name       varchar(255),
+    email      varchar(255) not null,
+    password   varchar(255),
+    role       varchar(255),
+    created_at timestamp(6) with time zone,
+    primary key (id)
+);
+
+-- Every login, registration and token refresh looks a user up by email.
+create unique index ux_users_email on users (email);
+create index ix_users_verified_created_at on users (verified, created_at);
+
+create table refresh_tokens (
+    id         uuid                        not null,
+    token_hash varchar(64)                 not null,
+    family_id  uuid                        not null,
+    user_id    uuid                        not null,
+    created_at timestamp(6) with time zone not null,
+    expires_at timestamp(6) with time zone not null,
+    used_at    timestamp(6) with time zone,
+    revoked_at timestamp(6) with time zone,
+    version    bigint                      not null,
+    primary key (id),
+    constraint fk_refresh_tokens_user foreign key (user_id) references users (id)
+);
+
+create unique index ux_refresh_tokens_token_hash on refresh_tokens (token_hash);
+create index ix_refresh_tokens_family_id on refresh_tokens (family_id);
+create index ix_refresh_tokens_user_id on refresh_tokens (user_id);
+
+create table one_time_tokens (
+    id         uuid                        not null,
+    token_hash varchar(64)                 not null,
+    type       varchar(32)                 not null,
+    user_id    uuid                        not null,
+    expires_at timestamp(6) with time zone not null,
+    primary key (id),
+    constraint fk_one_time_tokens_user foreign key (user_id) references users (id)
+);
+
+create unique index ux_one_time_tokens_token_hash on one_time_tokens (token_hash);
+create index ix_one_time_tokens_user_id on one_time_tokens (user_id);
+create index ix_one_time_tokens_expires_at on one_time_tokens (expires_at);
+
+create table email_outbox (
+    id              uuid                        not null,
+    type            varchar(32)                 not null,
+    recipient       varchar(255)                not null,
+    token           varchar(255)                not null,
+    attempts        integer                     not null,
+    last_error      varchar(1000),
+    created_at      timestamp(6) with time zone not null,
+    next_attempt_at timestamp(6) with time zone not null,
+    primary key (id)
+);
+
+create index ix_email_outbox_next_attempt_at on email_outbox (next_attempt_at);
+
+create table email_dead_letter (
+    id         uuid                        not null,
+    type       varchar(32)                 not null,
+    recipient  varchar(255)                not null,
+    attempts   integer                     not null,
+    last_error varchar(1000),
+    permanent  boolean                     not null,
+    created_at timestamp(6) with time zone not null,
+    failed_at  timestamp(6) with time zone not null,
+    primary key (id)
+);
+
+create index ix_email_dead_letter_failed_at on email_dead_letter (failed_at);
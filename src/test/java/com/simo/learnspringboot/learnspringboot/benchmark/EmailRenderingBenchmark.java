@@ -0,0 +1,150 @@
+package com.simo.learnspringboot.learnspringboot.benchmark;
+
+import com.simo.learnspringboot.learnspringboot.config.EmailProperties;
+import com.simo.learnspringboot.learnspringboot.model.EmailType;
+import com.simo.learnspringboot.learnspringboot.service.EmailTemplateRenderer;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering one email body, and building the whole email ready for the wire: the former inline text block formatted
+ * into a multipart message, versus the cached Thymeleaf template written as a single text/html part. {@code writeTo}
+ * forces the MIME encoding that the SMTP transport would otherwise do. Run with {@code -prof gc} for the allocation
+ * per email.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailRenderingBenchmark {
+
+    private static final String TOKEN = "3f1c2a9e-6b7d-4e8f-9a0b-1c2d3e4f5a6b";
+
+    @Param({"VERIFICATION", "PASSWORD_RESET"})
+    public EmailType template;
+
+    private JavaMailSenderImpl mailSender;
+    private EmailTemplateRenderer renderer;
+
+    @Setup
+    public void setUp() {
+        mailSender = new JavaMailSenderImpl();
+        Properties mailProperties = new Properties();
+        // Otherwise every Message-ID costs a local host name lookup, which would drown out the rendering.
+        mailProperties.setProperty("mail.from", "no-reply@example.com");
+        mailSender.setJavaMailProperties(mailProperties);
+
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setCharacterEncoding("UTF-8");
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("messages");
+        messageSource.setDefaultEncoding("UTF-8");
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        engine.setTemplateEngineMessageSource(messageSource);
+        EmailProperties properties = new EmailProperties();
+        renderer = new EmailTemplateRenderer(engine, messageSource, properties);
+    }
+
+    @Benchmark
+    public String renderInline() {
+        return template == EmailType.VERIFICATION
+                ? LEGACY_VERIFICATION.formatted("http://localhost:8080/api/auth/verify-email?token=" + TOKEN)
+                : LEGACY_RESET.formatted("http://localhost:8080/api/auth/reset-password?token=" + TOKEN);
+    }
+
+    @Benchmark
+    public EmailTemplateRenderer.RenderedEmail renderTemplate() {
+        return renderer.render(template, TOKEN, Locale.ENGLISH);
+    }
+
+    @Benchmark
+    public int buildInlineMultipart() throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+        helper.setTo("bench@example.com");
+        helper.setSubject(template == EmailType.VERIFICATION ? "✅ Verify Your Email Address" : "🔐 Password Reset Request");
+        helper.setText(renderInline(), true);
+        return encode(message);
+    }
+
+    @Benchmark
+    public int buildTemplateSinglePart() throws Exception {
+        EmailTemplateRenderer.RenderedEmail email = renderTemplate();
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
+        helper.setTo("bench@example.com");
+        helper.setSubject(email.subject());
+        helper.setText(email.html(), true);
+        return encode(message);
+    }
+
+    private static int encode(MimeMessage message) throws MessagingException, IOException {
+        message.saveChanges();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(2048);
+        message.writeTo(out);
+        return out.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EmailRenderingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    // The bodies EmailService used to format, kept verbatim as the baseline.
+    private static final String LEGACY_VERIFICATION = """
+                <html>
+                    <body style="font-family: Arial, sans-serif; line-height:1.6; color:#333;">
+                        <h2 style="color:#28B463;">Email Verification</h2>
+                        <p>Thank you for registering! Please verify your email address by clicking the button below:</p>
+                        <p style="text-align:center;">
+                            <a href="%s" 
+                               style="background-color:#28B463; color:white; padding:10px 20px; text-decoration:none; border-radius:5px;">
+                               Verify Email
+                            </a>
+                        </p>
+                        <p>If you did not create an account, please ignore this email.</p>
+                        <hr>
+                        <p style="font-size:12px; color:#888;">This is an automated message. Do not reply.</p>
+                    </body>
+                </html>
+            """;
+
+    private static final String LEGACY_RESET = """
+                <html>
+                    <body style="font-family: Arial, sans-serif; line-height:1.6; color:#333;">
+                        <h2 style="color:#2E86C1;">Password Reset Request</h2>
+                        <p>We received a request to reset your password. Click the button below to reset it:</p>
+                        <p style="text-align:center;">
+                            <a href="%s" 
+                               style="background-color:#2E86C1; color:white; padding:10px 20px; text-decoration:none; border-radius:5px;">
+                               Reset Password
+                            </a>
+                        </p>
+                        <p>If you did not request a password reset, please ignore this email.</p>
+                        <hr>
+                        <p style="font-size:12px; color:#888;">This is an automated message. Do not reply.</p>
+                    </body>
+                </html>
+            """;
+}
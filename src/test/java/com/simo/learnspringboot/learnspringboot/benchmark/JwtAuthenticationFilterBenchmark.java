@@ -0,0 +1,89 @@
+package com.simo.learnspringboot.learnspringboot.benchmark;
+
+import com.simo.learnspringboot.learnspringboot.config.JwtProperties;
+import com.simo.learnspringboot.learnspringboot.config.ReadReplicaProperties;
+import com.simo.learnspringboot.learnspringboot.config.UserDetailsCacheProperties;
+import com.simo.learnspringboot.learnspringboot.filter.JwtAuthenticationFilter;
+import com.simo.learnspringboot.learnspringboot.repository.UserCredentials;
+import com.simo.learnspringboot.learnspringboot.repository.UserRepository;
+import com.simo.learnspringboot.learnspringboot.security.CustomUserDetailsService;
+import com.simo.learnspringboot.learnspringboot.security.JwtKeyRing;
+import com.simo.learnspringboot.learnspringboot.security.JwtUtil;
+import com.simo.learnspringboot.learnspringboot.security.TokenRevocationList;
+import com.simo.learnspringboot.learnspringboot.security.UserDetailsCache;
+import com.simo.learnspringboot.learnspringboot.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * One pass through the authentication filter with a no-op chain, for every combination of the
+ * verified-token cache and the stateless principal switch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cacheEnabled;
+
+    @Param({"true", "false"})
+    public boolean statelessPrincipal;
+
+    private JwtAuthenticationFilter filter;
+    private MockHttpServletRequest request;
+    private final FilterChain chain = (request, response) -> { };
+
+    @Setup
+    public void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.getCache().setEnabled(cacheEnabled);
+        properties.setStatelessPrincipal(statelessPrincipal);
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findCredentialsByEmail("bench@example.com"))
+                .thenReturn(Optional.of(new UserCredentials("bench@example.com", "hashed", "ROLE_USER", true)));
+
+        JwtUtil jwtUtil = new JwtUtil(properties, new JwtKeyRing(properties));
+        filter = new JwtAuthenticationFilter(jwtUtil,
+                new CustomUserDetailsService(userRepository,
+                        new UserDetailsCache(new UserDetailsCacheProperties(), new SimpleMeterRegistry()),
+                        new ReadReplicaProperties()),
+                new VerifiedTokenCache(properties, new SimpleMeterRegistry()),
+                new TokenRevocationList(properties),
+                properties);
+
+        request = new MockHttpServletRequest("GET", "/api/user/me");
+        request.addHeader("Authorization", "Bearer " + jwtUtil.generateToken("bench@example.com", "ROLE_USER", true));
+    }
+
+    @Benchmark
+    public Object doFilter() throws Exception {
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtAuthenticationFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
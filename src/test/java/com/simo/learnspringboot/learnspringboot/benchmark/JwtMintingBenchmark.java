@@ -0,0 +1,67 @@
+package com.simo.learnspringboot.learnspringboot.benchmark;
+
+import com.simo.learnspringboot.learnspringboot.config.JwtProperties;
+import com.simo.learnspringboot.learnspringboot.security.JwtKeyRing;
+import com.simo.learnspringboot.learnspringboot.security.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.PrivateKey;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares minting a login token through the jjwt builder with the pre-encoded ES256 path in JwtUtil.
+ * Run with {@code -prof gc} to see the allocation difference as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtMintingBenchmark {
+
+    private static final long EXPIRATION_MILLIS = 15 * 60 * 1000;
+
+    private JwtUtil jwtUtil;
+    private PrivateKey privateKey;
+
+    @Setup
+    public void setUp() {
+        JwtProperties properties = new JwtProperties();
+        jwtUtil = new JwtUtil(properties, new JwtKeyRing(properties));
+        privateKey = Keys.keyPairFor(SignatureAlgorithm.ES256).getPrivate();
+    }
+
+    @Benchmark
+    public String jjwtBuilder() {
+        return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
+                .setSubject("bench@example.com")
+                .claim("role", "ROLE_USER")
+                .claim("verified", true)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_MILLIS))
+                .setHeaderParam("kid", "bench-key")
+                .signWith(privateKey, SignatureAlgorithm.ES256)
+                .compact();
+    }
+
+    @Benchmark
+    public String fastMinter() {
+        return jwtUtil.generateToken("bench@example.com", "ROLE_USER", true);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtMintingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
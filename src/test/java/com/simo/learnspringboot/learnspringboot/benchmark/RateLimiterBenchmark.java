@@ -0,0 +1,104 @@
+package com.simo.learnspringboot.learnspringboot.benchmark;
+
+import com.simo.learnspringboot.learnspringboot.security.RateLimiter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Many threads taking tokens, either all from one hot key (one IP hammering login) or each from its own key, with
+ * the lock-free RateLimiter versus a classic token bucket that refills under a lock. The limits are wide enough
+ * that every request is allowed: this is the cost added to a normal login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private final RateLimiter rateLimiter = new RateLimiter(Integer.MAX_VALUE, Duration.ofMillis(1), Clock.systemUTC());
+    private final LockingRateLimiter lockingRateLimiter = new LockingRateLimiter(Integer.MAX_VALUE, Duration.ofMillis(1));
+    private final AtomicInteger threads = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class ThreadKey {
+        private String key;
+
+        @Setup
+        public void setUp(RateLimiterBenchmark benchmark) {
+            key = "10.0.0." + benchmark.threads.incrementAndGet();
+        }
+    }
+
+    @Benchmark
+    public long lockFreeHotKey() {
+        return rateLimiter.tryAcquire("10.0.0.1");
+    }
+
+    @Benchmark
+    public long lockFreeKeyPerThread(ThreadKey threadKey) {
+        return rateLimiter.tryAcquire(threadKey.key);
+    }
+
+    @Benchmark
+    public long lockingHotKey() {
+        return lockingRateLimiter.tryAcquire("10.0.0.1");
+    }
+
+    @Benchmark
+    public long lockingKeyPerThread(ThreadKey threadKey) {
+        return lockingRateLimiter.tryAcquire(threadKey.key);
+    }
+
+    // The textbook token bucket: a token count refilled from the elapsed time, guarded by the bucket's monitor.
+    static final class LockingRateLimiter {
+        private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+        private final double capacity;
+        private final double tokensPerMilli;
+
+        LockingRateLimiter(int capacity, Duration refillPeriod) {
+            this.capacity = capacity;
+            this.tokensPerMilli = 1.0 / refillPeriod.toMillis();
+        }
+
+        long tryAcquire(String key) {
+            Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(capacity, System.currentTimeMillis()));
+            synchronized (bucket) {
+                long now = System.currentTimeMillis();
+                bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.refilledAt) * tokensPerMilli);
+                bucket.refilledAt = now;
+                if (bucket.tokens >= 1) {
+                    bucket.tokens--;
+                    return 0;
+                }
+                return (long) Math.ceil((1 - bucket.tokens) / tokensPerMilli);
+            }
+        }
+
+        private static final class Bucket {
+            private double tokens;
+            private long refilledAt;
+
+            Bucket(double tokens, long refilledAt) {
+                this.tokens = tokens;
+                this.refilledAt = refilledAt;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RateLimiterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,112 @@
+package com.simo.learnspringboot.learnspringboot.benchmark;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.simo.learnspringboot.learnspringboot.config.EmailProperties;
+import com.simo.learnspringboot.learnspringboot.service.SmtpTransportPool;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Messages per second delivered to an in-process GreenMail server, either one {@code JavaMailSender.send} per
+ * message (a new connection, and for smtps a new TLS handshake, every time) or a whole batch over one pooled session.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmtpDeliveryBenchmark {
+
+    private static final int BATCH = 20;
+
+    @Param({"smtp", "smtps"})
+    public String protocol;
+
+    private GreenMail greenMail;
+    private JavaMailSenderImpl mailSender;
+    private SmtpTransportPool pool;
+
+    @Setup(Level.Trial)
+    public void startServer() {
+        ServerSetup setup = "smtps".equals(protocol) ? ServerSetupTest.SMTPS : ServerSetupTest.SMTP;
+        greenMail = new GreenMail(setup);
+        greenMail.start();
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(setup.getPort());
+        mailSender.setProtocol(protocol);
+        Properties properties = new Properties();
+        // GreenMail serves a self-signed certificate that does not name localhost.
+        properties.setProperty("mail.smtps.ssl.trust", "*");
+        properties.setProperty("mail.smtps.ssl.checkserveridentity", "false");
+        mailSender.setJavaMailProperties(properties);
+        pool = new SmtpTransportPool(mailSender, new EmailProperties());
+    }
+
+    @Setup(Level.Iteration)
+    public void purgeMailboxes() throws Exception {
+        greenMail.purgeEmailFromAllMailboxes();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        pool.destroy();
+        greenMail.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void connectionPerMessage() {
+        for (MimeMessage message : batch()) {
+            mailSender.send(message);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public Map<MimeMessage, Exception> pooledSession() {
+        Map<MimeMessage, Exception> failures = pool.send(batch());
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("Delivery failed", failures.values().iterator().next());
+        }
+        return failures;
+    }
+
+    private List<MimeMessage> batch() {
+        List<MimeMessage> messages = new ArrayList<>(BATCH);
+        try {
+            for (int i = 0; i < BATCH; i++) {
+                MimeMessage message = mailSender.createMimeMessage();
+                message.setFrom("no-reply@example.com");
+                message.setRecipients(MimeMessage.RecipientType.TO, "user" + i + "@example.com");
+                message.setSubject("Verify your email");
+                message.setText("token-" + i);
+                messages.add(message);
+            }
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+        return messages;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SmtpDeliveryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,83 @@
+package com.simo.learnspringboot.learnspringboot.benchmark;
+
+import com.simo.learnspringboot.learnspringboot.LearnspringbootApplication;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Boots and stops the application with the prod profile against a file-backed H2 database that already holds the
+ * schema, as on every restart but the first: Hibernate diffing the schema with {@code ddl-auto: update} versus
+ * Flyway checking its history table and Hibernate validating.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final Path DATABASE_DIR = Path.of("target", "startup-benchmark");
+
+    @Param({"ddl-auto-update", "flyway-validate"})
+    private String schemaManagement;
+
+    private String[] args;
+
+    @Setup(Level.Trial)
+    public void createSchema() throws IOException {
+        deleteDatabase();
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.profiles.active=prod",
+                "--spring.datasource.url=jdbc:h2:file:./" + DATABASE_DIR.resolve(schemaManagement),
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--app.password-hashing.calibration.enabled=false",
+                "--app.mail.outbox.poll-interval=PT1H"));
+        if ("ddl-auto-update".equals(schemaManagement)) {
+            arguments.add("--spring.flyway.enabled=false");
+            arguments.add("--spring.jpa.hibernate.ddl-auto=update");
+        }
+        args = arguments.toArray(String[]::new);
+        // The first boot creates the schema; the measured ones find it in place.
+        boot();
+    }
+
+    @TearDown(Level.Trial)
+    public void dropSchema() throws IOException {
+        deleteDatabase();
+    }
+
+    @Benchmark
+    public void boot() {
+        new SpringApplicationBuilder(LearnspringbootApplication.class).run(args).close();
+    }
+
+    private static void deleteDatabase() throws IOException {
+        if (Files.exists(DATABASE_DIR)) {
+            try (Stream<Path> files = Files.walk(DATABASE_DIR)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StartupBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
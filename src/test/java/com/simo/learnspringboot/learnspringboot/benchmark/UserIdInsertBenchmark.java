@@ -0,0 +1,116 @@
+package com.simo.learnspringboot.learnspringboot.benchmark;
+
+import com.simo.learnspringboot.learnspringboot.model.UuidV7Generator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Inserts users keyed by random v4 versus time-ordered v7 UUIDs into a fresh file-backed H2 database, in JDBC
+ * batches of 50 committed every 500 rows like the bulk import. Each iteration prints the table's size (rows and
+ * primary-key index) and the database file's size once all rows are in. The gap widens with the row count:
+ * {@code -Djmh.args="-p rows=5000000"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class UserIdInsertBenchmark {
+
+    private static final int BATCH_SIZE = 50;
+    private static final int COMMIT_SIZE = 500;
+    private static final Path DATABASE_DIR = Path.of("target", "user-id-insert-benchmark");
+
+    @Param({"v4", "v7"})
+    private String idVersion;
+
+    @Param({"1000000"})
+    private int rows;
+
+    private Supplier<UUID> ids;
+    private Connection connection;
+
+    @Setup(Level.Iteration)
+    public void createDatabase() throws IOException, SQLException {
+        UuidV7Generator v7 = new UuidV7Generator();
+        ids = "v7".equals(idVersion) ? v7::generate : UUID::randomUUID;
+
+        deleteDatabase();
+        connection = DriverManager.getConnection("jdbc:h2:file:./" + DATABASE_DIR.resolve("users"), "sa", "");
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table users (id uuid primary key, verified boolean, name varchar(255), "
+                    + "email varchar(255), password varchar(255), role varchar(255))");
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void dropDatabase() throws IOException, SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet size = statement.executeQuery("select disk_space_used('USERS')")) {
+            size.next();
+            // Live pages versus the file, which also holds the pages that page splits left behind.
+            System.out.printf("%n%s: %,d rows use %,d KiB in a %,d KiB file%n", idVersion, rows,
+                    size.getLong(1) / 1024, Files.size(DATABASE_DIR.resolve("users.mv.db")) / 1024);
+        }
+        connection.close();
+        deleteDatabase();
+    }
+
+    @Benchmark
+    public int insert() throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into users (id, verified, name, email, password, role) values (?, false, ?, ?, ?, 'ROLE_USER')")) {
+            for (int i = 1; i <= rows; i++) {
+                insert.setObject(1, ids.get());
+                insert.setString(2, "Bench");
+                insert.setString(3, "user-" + i + "@example.com");
+                insert.setString(4, "$2a$10$abcdefghijklmnopqrstuuN9ZzYbEVzw7KTjVXbrXGdCEmd1aPf3K");
+                insert.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+                if (i % COMMIT_SIZE == 0) {
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+        return rows;
+    }
+
+    private static void deleteDatabase() throws IOException {
+        if (Files.exists(DATABASE_DIR)) {
+            try (Stream<Path> files = Files.walk(DATABASE_DIR)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UserIdInsertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,91 @@
+package com.simo.learnspringboot.learnspringboot.benchmark;
+
+import com.simo.learnspringboot.learnspringboot.LearnspringbootApplication;
+import com.simo.learnspringboot.learnspringboot.dto.RegisterRequestDto;
+import com.simo.learnspringboot.learnspringboot.dto.UserImportReportDto;
+import com.simo.learnspringboot.learnspringboot.service.AuthService;
+import com.simo.learnspringboot.learnspringboot.service.UserImportService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Onboards a batch of users through the registration service one by one versus the bulk import, against the
+ * in-memory H2 database. Strength 4 leaves mostly the per-user database work; at 10 BCrypt dominates and the
+ * import's advantage is roughly the number of cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UserImportBenchmark {
+
+    private static final int USERS = 200;
+
+    @Param({"4", "10"})
+    private int strength;
+
+    private ConfigurableApplicationContext context;
+    private AuthService authService;
+    private UserImportService userImportService;
+    private int batch;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        // Passed as arguments: builder default properties would lose against application.yaml.
+        context = new SpringApplicationBuilder(LearnspringbootApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--app.password-hashing.calibration.enabled=false",
+                        "--app.password-hashing.calibration.strength=" + strength,
+                        // Keep the dispatcher from competing with the inserts.
+                        "--app.mail.outbox.poll-interval=PT1H"
+                );
+        authService = context.getBean(AuthService.class);
+        userImportService = context.getBean(UserImportService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public int registerOneByOne() {
+        String prefix = "register-" + batch++ + "-";
+        for (int i = 0; i < USERS; i++) {
+            authService.register(new RegisterRequestDto("Bench", prefix + i + "@example.com", "Password@123"));
+        }
+        return USERS;
+    }
+
+    @Benchmark
+    public UserImportReportDto bulkImport() {
+        String prefix = "import-" + batch++ + "-";
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < USERS; i++) {
+            body.append("{\"name\":\"Bench\",\"email\":\"").append(prefix).append(i)
+                    .append("@example.com\",\"password\":\"Password@123\"}\n");
+        }
+        return userImportService.importUsers(
+                new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8)),
+                UserImportService.Format.NDJSON);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UserImportBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,84 @@
+package com.simo.learnspringboot.learnspringboot.controller;
+
+import com.simo.learnspringboot.learnspringboot.exception_handler.GlobalExceptionHandler;
+import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.DeadLetterEmailNotFoundException;
+import com.simo.learnspringboot.learnspringboot.model.DeadLetterEmail;
+import com.simo.learnspringboot.learnspringboot.model.EmailType;
+import com.simo.learnspringboot.learnspringboot.service.EmailDeadLetters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class AdminEmailControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private EmailDeadLetters emailDeadLetters;
+
+    @InjectMocks
+    private AdminEmailController adminEmailController;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        mockMvc = MockMvcBuilders.standaloneSetup(adminEmailController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void shouldListDeadLettersWithoutTheirTokens() throws Exception {
+        DeadLetterEmail email = new DeadLetterEmail();
+        email.setId(UUID.randomUUID());
+        email.setType(EmailType.VERIFICATION);
+        email.setRecipient("dead@example.com");
+        email.setAttempts(8);
+        email.setLastError("421 try again later");
+        email.setCreatedAt(Instant.now());
+        email.setFailedAt(Instant.now());
+        when(emailDeadLetters.list(0, 20)).thenReturn(List.of(email));
+
+        mockMvc.perform(get("/api/admin/emails/dead-letters").param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(email.getId().toString()))
+                .andExpect(jsonPath("$[0].recipient").value("dead@example.com"))
+                .andExpect(jsonPath("$[0].attempts").value(8))
+                .andExpect(jsonPath("$[0].permanent").value(false))
+                .andExpect(jsonPath("$[0].token").doesNotExist());
+    }
+
+    @Test
+    void shouldReplayDeadLetter() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(emailDeadLetters.replay(id)).thenReturn("Email to dead@example.com has been queued again.");
+
+        mockMvc.perform(post("/api/admin/emails/dead-letters/{id}/replay", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Email to dead@example.com has been queued again."));
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownDeadLetter() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(emailDeadLetters.replay(id))
+                .thenThrow(new DeadLetterEmailNotFoundException("Dead-lettered email not found: " + id));
+
+        mockMvc.perform(post("/api/admin/emails/dead-letters/{id}/replay", id))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.details").value("Dead-lettered email not found: " + id));
+    }
+}
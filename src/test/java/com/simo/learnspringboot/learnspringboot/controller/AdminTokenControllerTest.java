@@ -0,0 +1,87 @@
+package com.simo.learnspringboot.learnspringboot.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simo.learnspringboot.learnspringboot.dto.RevokeTokenRequestDto;
+import com.simo.learnspringboot.learnspringboot.dto.RevokeUserTokensRequestDto;
+import com.simo.learnspringboot.learnspringboot.exception_handler.GlobalExceptionHandler;
+import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.UserNotFoundException;
+import com.simo.learnspringboot.learnspringboot.service.TokenRevocationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class AdminTokenControllerTest {
+
+    private MockMvc mockMvc;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @InjectMocks
+    private AdminTokenController adminTokenController;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        mockMvc = MockMvcBuilders.standaloneSetup(adminTokenController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void shouldRevokeSingleToken() throws Exception {
+        when(tokenRevocationService.revokeToken("some.jwt.token")).thenReturn("Token has been revoked.");
+
+        mockMvc.perform(post("/api/admin/tokens/revoke")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RevokeTokenRequestDto("some.jwt.token"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Token has been revoked."));
+    }
+
+    @Test
+    void shouldRevokeAllTokensOfUser() throws Exception {
+        when(tokenRevocationService.revokeAllForUser("alice@example.com"))
+                .thenReturn("All tokens of alice@example.com have been revoked.");
+
+        mockMvc.perform(post("/api/admin/tokens/revoke-user")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RevokeUserTokensRequestDto("alice@example.com"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("All tokens of alice@example.com have been revoked."));
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownUser() throws Exception {
+        when(tokenRevocationService.revokeAllForUser("ghost@example.com"))
+                .thenThrow(new UserNotFoundException("User not found: ghost@example.com"));
+
+        mockMvc.perform(post("/api/admin/tokens/revoke-user")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RevokeUserTokensRequestDto("ghost@example.com"))))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.details").value("User not found: ghost@example.com"));
+    }
+
+    @Test
+    void shouldRejectBlankToken() throws Exception {
+        mockMvc.perform(post("/api/admin/tokens/revoke")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RevokeTokenRequestDto(""))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.token").value("Token is required"));
+
+        verifyNoInteractions(tokenRevocationService);
+    }
+}
@@ -0,0 +1,93 @@
+package com.simo.learnspringboot.learnspringboot.controller;
+
+import com.simo.learnspringboot.learnspringboot.dto.UserImportReportDto;
+import com.simo.learnspringboot.learnspringboot.dto.UserImportReportDto.RowError;
+import com.simo.learnspringboot.learnspringboot.exception_handler.GlobalExceptionHandler;
+import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.InvalidImportException;
+import com.simo.learnspringboot.learnspringboot.service.UserImportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class AdminUserControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private UserImportService userImportService;
+
+    @InjectMocks
+    private AdminUserController adminUserController;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        mockMvc = MockMvcBuilders.standaloneSetup(adminUserController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void shouldImportNdjsonAndReportRowErrors() throws Exception {
+        when(userImportService.importUsers(any(), eq(UserImportService.Format.NDJSON))).thenReturn(
+                new UserImportReportDto(2, 1, List.of(new RowError(2, "dup@example.com", List.of("Email already in use!")))));
+
+        mockMvc.perform(post("/api/admin/users/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{}\n{}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(2))
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(2))
+                .andExpect(jsonPath("$.errors[0].email").value("dup@example.com"))
+                .andExpect(jsonPath("$.errors[0].messages[0]").value("Email already in use!"));
+    }
+
+    @Test
+    void shouldImportCsv() throws Exception {
+        when(userImportService.importUsers(any(), eq(UserImportService.Format.CSV)))
+                .thenReturn(new UserImportReportDto(1, 1, List.of()));
+
+        mockMvc.perform(post("/api/admin/users/import")
+                        .contentType("text/csv")
+                        .content("name,email,password\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1));
+    }
+
+    @Test
+    void shouldReturnBadRequestForUnusableCsvHeader() throws Exception {
+        when(userImportService.importUsers(any(), eq(UserImportService.Format.CSV)))
+                .thenThrow(new InvalidImportException("The CSV header must name the columns [name, email, password]"));
+
+        mockMvc.perform(post("/api/admin/users/import")
+                        .contentType("text/csv")
+                        .content("email\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.details").value("The CSV header must name the columns [name, email, password]"));
+    }
+
+    @Test
+    void shouldRejectOtherContentTypes() throws Exception {
+        mockMvc.perform(post("/api/admin/users/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isUnsupportedMediaType());
+
+        verifyNoInteractions(userImportService);
+    }
+}
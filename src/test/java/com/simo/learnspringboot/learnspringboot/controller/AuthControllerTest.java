@@ -2,22 +2,32 @@ package com.simo.learnspringboot.learnspringboot.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import com.simo.learnspringboot.learnspringboot.config.PasswordHashingProperties;
 import com.simo.learnspringboot.learnspringboot.dto.*;
 import com.simo.learnspringboot.learnspringboot.exception_handler.GlobalExceptionHandler;
 import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.EmailAlreadyInUseException;
 import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.InvalidAuthCredentialsException;
 import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.InvalidTokenException;
+import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.ServerBusyException;
+import com.simo.learnspringboot.learnspringboot.security.PasswordHashingExecutor;
 import com.simo.learnspringboot.learnspringboot.service.AuthService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Duration;
+
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -30,8 +40,7 @@ class AuthControllerTest {
     @Mock
     private AuthService authService;
 
-    @InjectMocks
-    private AuthController authController;
+    private PasswordHashingExecutor passwordHashingExecutor;
 
 
     @BeforeEach
@@ -39,11 +48,25 @@ class AuthControllerTest {
 
         MockitoAnnotations.openMocks(this);
         objectMapper = new ObjectMapper();
-        mockMvc = MockMvcBuilders.standaloneSetup(authController)
+        passwordHashingExecutor = new PasswordHashingExecutor(new PasswordHashingProperties(), new SimpleMeterRegistry());
+        mockMvc = MockMvcBuilders.standaloneSetup(new AuthController(authService, passwordHashingExecutor))
                 .setControllerAdvice(new GlobalExceptionHandler())
                 .build();
     }
 
+    @AfterEach
+    void tearDown() {
+        passwordHashingExecutor.destroy();
+    }
+
+    // Hashing endpoints answer with a CompletableFuture: the response is written on the async dispatch.
+    private ResultActions performAsync(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
     @Test
     void shouldRegisterUserSuccessfully() throws Exception {
         RegisterRequestDto request = new RegisterRequestDto(
@@ -59,7 +82,7 @@ class AuthControllerTest {
 
         when(authService.register(request)).thenReturn(mockResponse);
 
-        mockMvc.perform(post("/api/auth/register")
+        performAsync(post("/api/auth/register")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
@@ -80,7 +103,7 @@ class AuthControllerTest {
         when(authService.register(any(RegisterRequestDto.class)))
                 .thenThrow(new EmailAlreadyInUseException("Email already in use!"));
 
-        mockMvc.perform(post("/api/auth/register")
+        performAsync(post("/api/auth/register")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isConflict())
@@ -104,7 +127,7 @@ class AuthControllerTest {
 
         when(authService.login(request)).thenReturn(mockResponse);
 
-        mockMvc.perform(post("/api/auth/login")
+        performAsync(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
@@ -116,6 +139,44 @@ class AuthControllerTest {
         verify(authService, times(1)).login(request);
     }
 
+    @Test
+    void shouldRefreshTokensSuccessfully() throws Exception {
+        RefreshTokenRequestDto request = new RefreshTokenRequestDto("oldRefreshToken");
+
+        AuthResponseDto mockResponse = new AuthResponseDto(
+                "newAccessToken",
+                "alice@example.com",
+                "ROLE_USER",
+                "Token refreshed successfully!",
+                "newRefreshToken"
+        );
+
+        when(authService.refresh(request)).thenReturn(mockResponse);
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("newAccessToken"))
+                .andExpect(jsonPath("$.refreshToken").value("newRefreshToken"));
+
+        verify(authService).refresh(request);
+    }
+
+    @Test
+    void shouldRejectReusedRefreshToken() throws Exception {
+        RefreshTokenRequestDto request = new RefreshTokenRequestDto("reusedToken");
+
+        when(authService.refresh(request))
+                .thenThrow(new InvalidTokenException("Invalid or expired refresh token."));
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.details").value("Invalid or expired refresh token."));
+    }
+
     @Test
     void shouldReturnErrorStatusOnLoginFailure() throws Exception {
         LoginRequestDto request = new LoginRequestDto(
@@ -125,7 +186,7 @@ class AuthControllerTest {
         when(authService.login(request))
                 .thenThrow(new InvalidAuthCredentialsException("Invalid credentials"));
 
-        mockMvc.perform(post("/api/auth/login")
+        performAsync(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isUnauthorized())
@@ -233,7 +294,7 @@ class AuthControllerTest {
                 "NewPassword@123"
         );
 
-        mockMvc.perform(post("/api/auth/reset-password")
+        performAsync(post("/api/auth/reset-password")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isOk())
@@ -254,7 +315,7 @@ class AuthControllerTest {
                 "NewPassword@123"
         );
 
-        mockMvc.perform(post("/api/auth/reset-password")
+        performAsync(post("/api/auth/reset-password")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest())
@@ -262,4 +323,23 @@ class AuthControllerTest {
 
         verify(authService).resetPassword(any(ResetPasswordRequestDto.class));
     }
+
+    @Test
+    void shouldRejectLoginWithServiceUnavailableWhenHashingPoolIsFull() throws Exception {
+        PasswordHashingExecutor saturated = mock(PasswordHashingExecutor.class);
+        when(saturated.supply(any())).thenThrow(
+                new ServerBusyException("Too many authentication requests, please retry shortly.", Duration.ofSeconds(2)));
+        MockMvc busyMockMvc = MockMvcBuilders.standaloneSetup(new AuthController(authService, saturated))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        busyMockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginRequestDto("alice@example.com", "password123"))))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.details").value("Too many authentication requests, please retry shortly."));
+
+        verifyNoInteractions(authService);
+    }
 }
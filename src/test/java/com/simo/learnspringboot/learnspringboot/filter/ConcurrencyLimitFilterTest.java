@@ -0,0 +1,176 @@
+package com.simo.learnspringboot.learnspringboot.filter;
+
+import com.simo.learnspringboot.learnspringboot.config.ConcurrencyLimitProperties;
+import com.simo.learnspringboot.learnspringboot.config.ReadReplicaProperties;
+import com.simo.learnspringboot.learnspringboot.controller.AuthController;
+import com.simo.learnspringboot.learnspringboot.exception_handler.GlobalExceptionHandler;
+import com.simo.learnspringboot.learnspringboot.repository.UserRepository;
+import com.simo.learnspringboot.learnspringboot.security.ConcurrencyLimiter;
+import com.simo.learnspringboot.learnspringboot.security.JwtUtil;
+import com.simo.learnspringboot.learnspringboot.security.PasswordHashingExecutor;
+import com.simo.learnspringboot.learnspringboot.service.AuthService;
+import com.simo.learnspringboot.learnspringboot.service.EmailOutbox;
+import com.simo.learnspringboot.learnspringboot.service.OneTimeTokenService;
+import com.simo.learnspringboot.learnspringboot.service.RefreshTokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The filter in front of the real AuthController and AuthService, with a UserRepository stub whose latency the
+ * tests turn up and down.
+ */
+class ConcurrencyLimitFilterTest {
+
+    private final AtomicLong repositoryLatencyMillis = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ConcurrencyLimitFilter filter;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByEmail(anyString())).thenAnswer(invocation -> {
+            Thread.sleep(repositoryLatencyMillis.get());
+            return Optional.empty();
+        });
+        AuthService authService = new AuthService(mock(AuthenticationManager.class), userRepository,
+                mock(PasswordEncoder.class), mock(EmailOutbox.class), mock(JwtUtil.class),
+                mock(RefreshTokenService.class), mock(OneTimeTokenService.class), new ReadReplicaProperties(),
+                mock(PlatformTransactionManager.class));
+
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(4);
+        properties.setMinLimit(1);
+        properties.setMaxLimit(10);
+        properties.setLatencyThreshold(Duration.ofMillis(50));
+        properties.setBackoffRatio(0.5);
+        filter = new ConcurrencyLimitFilter(properties, meterRegistry);
+
+        mockMvc = MockMvcBuilders.standaloneSetup(new AuthController(authService, mock(PasswordHashingExecutor.class)))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .addFilters(filter)
+                .build();
+    }
+
+    @Test
+    void shouldShrinkTheLimitWhenTheDatabaseSlowsDown() throws Exception {
+        repositoryLatencyMillis.set(100);
+
+        for (int i = 0; i < 3; i++) {
+            forgetPassword().andExpect(status().isOk());
+        }
+
+        assertThat(filter.limiter().limit()).isEqualTo(1);
+        assertThat(meterRegistry.get("auth.concurrency.limit").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldShedExcessRequestsRightAwayWhileSlow() throws Exception {
+        repositoryLatencyMillis.set(100);
+        for (int i = 0; i < 3; i++) {
+            forgetPassword();
+        }
+
+        repositoryLatencyMillis.set(500);
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> {
+            try {
+                forgetPassword().andExpect(status().isOk());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (filter.limiter().inFlight() == 0) {
+            Thread.onSpinWait();
+        }
+
+        long start = System.nanoTime();
+        forgetPassword()
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(250));
+        assertThat(meterRegistry.get("auth.concurrency.rejected").counter().count()).isEqualTo(1);
+
+        slow.join();
+        assertThat(filter.limiter().inFlight()).isZero();
+    }
+
+    @Test
+    void shouldGrowBackOnceLatencyRecovers() throws Exception {
+        repositoryLatencyMillis.set(100);
+        for (int i = 0; i < 3; i++) {
+            forgetPassword();
+        }
+
+        repositoryLatencyMillis.set(0);
+        for (int i = 0; i < 3; i++) {
+            forgetPassword().andExpect(status().isOk());
+        }
+
+        assertThat(filter.limiter().limit()).isGreaterThan(1);
+    }
+
+    @Test
+    void shouldKeepAsyncRequestsInFlightUntilTheyComplete() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> req.startAsync());
+
+        assertThat(filter.limiter().inFlight()).isEqualTo(1);
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+        assertThat(filter.limiter().inFlight()).isZero();
+    }
+
+    @Test
+    void shouldLeaveOtherPathsAlone() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/user");
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) ->
+                assertThat(filter.limiter().inFlight()).isZero());
+    }
+
+    @Test
+    void shouldNotLimitTheKeySet() throws Exception {
+        ConcurrencyLimiter limiter = filter.limiter();
+        while (limiter.tryAcquire()) {
+            // Fill every slot, as a burst of slow logins would.
+        }
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/auth/keys");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> ((HttpServletResponse) res).setStatus(200));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get("auth.concurrency.rejected").counter().count()).isZero();
+    }
+
+    private ResultActions forgetPassword() throws Exception {
+        return mockMvc.perform(post("/api/auth/forget-password")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"slow@example.com\"}"));
+    }
+}
@@ -1,7 +1,12 @@
 package com.simo.learnspringboot.learnspringboot.filter;
 
+import com.simo.learnspringboot.learnspringboot.config.JwtProperties;
 import com.simo.learnspringboot.learnspringboot.security.CustomUserDetailsService;
 import com.simo.learnspringboot.learnspringboot.security.JwtUtil;
+import com.simo.learnspringboot.learnspringboot.security.TokenClaims;
+import com.simo.learnspringboot.learnspringboot.security.TokenRevocationList;
+import com.simo.learnspringboot.learnspringboot.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -11,6 +16,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -18,7 +24,9 @@ import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.Mockito.*;
@@ -29,6 +37,12 @@ public class JwtAuthenticationFilterTest {
     private JwtUtil jwtUtil;
     @Mock
     private CustomUserDetailsService userDetailsService;
+    @Spy
+    private JwtProperties jwtProperties = new JwtProperties();
+    @Spy
+    private VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(new JwtProperties(), new SimpleMeterRegistry());
+    @Spy
+    private TokenRevocationList revocationList = new TokenRevocationList(new JwtProperties());
 
     @InjectMocks
     private JwtAuthenticationFilter jwtAuthenticationFilter;
@@ -53,8 +67,7 @@ public class JwtAuthenticationFilterTest {
 
         when(request.getHeader("Authorization")).thenReturn(authHeader);
 
-        when(jwtUtil.validateToken(token)).thenReturn(true);
-        when(jwtUtil.extractUsername(token)).thenReturn(username);
+        when(jwtUtil.verifyToken(token)).thenReturn(Optional.of(claimsFor(username)));
 
         UserDetails userDetails = new User(username, "password", new ArrayList<>());
         when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
@@ -99,8 +112,7 @@ public class JwtAuthenticationFilterTest {
         when(request.getHeader("Authorization")).thenReturn(authHeader);
 
         // FIX: The mock now expects ONLY the token, not the "Bearer " prefix
-        when(jwtUtil.validateToken(token)).thenReturn(true);
-        when(jwtUtil.extractUsername(token)).thenReturn(username);
+        when(jwtUtil.verifyToken(token)).thenReturn(Optional.of(claimsFor(username)));
 
         UserDetails userDetails = new User(username, "password", new ArrayList<>());
         when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
@@ -117,4 +129,128 @@ public class JwtAuthenticationFilterTest {
         verify(filterChain).doFilter(request, response);
     }
 
+    @Test
+    void shouldNotSetAuthenticationWhenTokenFailsVerification() throws ServletException, IOException {
+        // Arrange
+        String token = "tamperedToken";
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(jwtUtil.verifyToken(token)).thenReturn(Optional.empty());
+
+        // Act
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(jwtUtil, never()).extractUsername(anyString());
+        verifyNoInteractions(userDetailsService);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void shouldVerifySignatureOnlyOnceForARepeatedToken() throws ServletException, IOException {
+        // Arrange
+        String token = "repeatedToken";
+        String username = "user@email.com";
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(jwtUtil.verifyToken(token)).thenReturn(Optional.of(claimsFor(username)));
+        when(userDetailsService.loadUserByUsername(username))
+                .thenReturn(new User(username, "password", new ArrayList<>()));
+
+        // Act
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+        SecurityContextHolder.clearContext();
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo(username);
+        verify(jwtUtil, times(1)).verifyToken(token);
+        assertThat(verifiedTokenCache.stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldBuildPrincipalFromClaimsWithoutLoadingUserInStatelessMode() throws ServletException, IOException {
+        // Arrange
+        jwtProperties.setStatelessPrincipal(true);
+        String token = "statelessToken";
+        Instant now = Instant.now();
+        TokenClaims claims = new TokenClaims("admin@email.com", now, now.plusSeconds(3600), "ROLE_ADMIN", true, "jti-1");
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(jwtUtil.verifyToken(token)).thenReturn(Optional.of(claims));
+
+        // Act
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getName()).isEqualTo("admin@email.com");
+        assertThat(authentication.getAuthorities().iterator().next().getAuthority()).isEqualTo("ROLE_ADMIN");
+        verifyNoInteractions(userDetailsService);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void shouldNotAuthenticateUnverifiedUserInStatelessMode() throws ServletException, IOException {
+        // Arrange
+        jwtProperties.setStatelessPrincipal(true);
+        String token = "unverifiedToken";
+        Instant now = Instant.now();
+        TokenClaims claims = new TokenClaims("new@email.com", now, now.plusSeconds(3600), "ROLE_USER", false, "jti-2");
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(jwtUtil.verifyToken(token)).thenReturn(Optional.of(claims));
+
+        // Act
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verifyNoInteractions(userDetailsService);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void shouldFallBackToUserLookupForTokensWithoutPrincipalClaimsInStatelessMode() throws ServletException, IOException {
+        // Arrange
+        jwtProperties.setStatelessPrincipal(true);
+        String token = "legacyToken";
+        String username = "user@email.com";
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(jwtUtil.verifyToken(token)).thenReturn(Optional.of(claimsFor(username)));
+        UserDetails userDetails = new User(username, "password", new ArrayList<>());
+        when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
+
+        // Act
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal()).isEqualTo(userDetails);
+    }
+
+    @Test
+    void shouldNotAuthenticateRevokedTokenEvenWhenCached() throws ServletException, IOException {
+        // Arrange
+        String token = "revokedToken";
+        String username = "user@email.com";
+        Instant now = Instant.now();
+        TokenClaims claims = new TokenClaims(username, now, now.plusSeconds(3600), "ROLE_USER", true, "jti-revoked");
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(jwtUtil.verifyToken(token)).thenReturn(Optional.of(claims));
+        when(userDetailsService.loadUserByUsername(username))
+                .thenReturn(new User(username, "password", new ArrayList<>()));
+
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+        SecurityContextHolder.clearContext();
+
+        // Act
+        revocationList.revoke("jti-revoked", claims.expiresAt());
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(filterChain, times(2)).doFilter(request, response);
+    }
+
+    private static TokenClaims claimsFor(String username) {
+        Instant now = Instant.now();
+        return new TokenClaims(username, now, now.plusSeconds(3600));
+    }
 }
@@ -0,0 +1,193 @@
+package com.simo.learnspringboot.learnspringboot.filter;
+
+import com.simo.learnspringboot.learnspringboot.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties.Endpoint login = new RateLimitProperties.Endpoint();
+        login.setPath("/api/auth/login");
+        login.setPerIp(limit(3, Duration.ofSeconds(3)));
+        login.setPerEmail(limit(2, Duration.ofSeconds(30)));
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getEndpoints().put("login", login);
+
+        filter = new RateLimitFilter(properties, meterRegistry,
+                Clock.fixed(Instant.parse("2025-01-01T00:00:00Z"), ZoneOffset.UTC));
+    }
+
+    @Test
+    void shouldLimitPerIpAndAnswer429WithRetryAfter() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(login("10.0.0.1", "user" + i + "@example.com").getStatus()).isEqualTo(200);
+        }
+
+        MockHttpServletResponse refused = login("10.0.0.1", "other@example.com");
+
+        assertThat(refused.getStatus()).isEqualTo(429);
+        assertThat(refused.getHeader("Retry-After")).isEqualTo("3");
+        assertThat(refused.getContentAsString()).contains("\"status\":429");
+        assertThat(login("10.0.0.2", "other@example.com").getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get("auth.rate-limit.rejected").tag("key", "ip").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldLimitPerEmailAcrossIpsIgnoringCase() throws Exception {
+        assertThat(login("10.0.0.1", "victim@example.com").getStatus()).isEqualTo(200);
+        assertThat(login("10.0.0.2", "Victim@Example.com").getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse refused = login("10.0.0.3", " victim@example.com");
+
+        assertThat(refused.getStatus()).isEqualTo(429);
+        assertThat(refused.getHeader("Retry-After")).isEqualTo("30");
+    }
+
+    @Test
+    void shouldHandTheUnchangedBodyToTheController() throws Exception {
+        String body = "{\"email\":\"body@example.com\",\"password\":\"Password@123\"}";
+        MockHttpServletRequest request = post("/api/auth/login", "10.0.0.1", body);
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8))
+                .isEqualTo(body);
+    }
+
+    @Test
+    void shouldRefuseADeclaredOversizeBodyWithoutReadingIt() throws Exception {
+        // Only the start of the body has arrived; the rest would follow if it were read.
+        MockHttpServletRequest oversize = new MockHttpServletRequest("POST", "/api/auth/login") {
+            @Override
+            public long getContentLengthLong() {
+                return 16 * 1024;
+            }
+        };
+        oversize.setContent("{\"email\":\"a@example.com\"".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(oversize, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(response.getContentAsString()).contains("\"status\":413");
+        assertThat(chain.getRequest()).isNull();
+        assertThat(oversize.getInputStream().available()).isPositive();
+    }
+
+    @Test
+    void shouldRefuseAnUndeclaredOversizeBody() throws Exception {
+        String body = "{\"email\":\"a@example.com\",\"padding\":\"" + "x".repeat(9 * 1024) + "\"}";
+        MockHttpServletRequest chunked = new MockHttpServletRequest("POST", "/api/auth/login") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunked.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(chunked, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void shouldReplayTheBodyToANonBlockingReader() throws Exception {
+        String body = "{\"email\":\"async@example.com\"}";
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(post("/api/auth/login", "10.0.0.1", body), new MockHttpServletResponse(), chain);
+        ServletInputStream in = chain.getRequest().getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        AtomicBoolean allRead = new AtomicBoolean();
+
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                byte[] buffer = new byte[8];
+                int n;
+                while (in.isReady() && (n = in.read(buffer)) != -1) {
+                    read.write(buffer, 0, n);
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                allRead.set(true);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new AssertionError(t);
+            }
+        });
+
+        assertThat(allRead).isTrue();
+        assertThat(read.toString(StandardCharsets.UTF_8)).isEqualTo(body);
+    }
+
+    @Test
+    void shouldLeaveOtherRequestsAlone() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest refresh = post("/api/auth/refresh", "10.0.0.1", "{}");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(refresh, response, new MockFilterChain());
+            assertThat(response.getStatus()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    void shouldReadOnlyTheTopLevelEmail() {
+        assertThat(RateLimitFilter.emailOf("{\"nested\":{\"email\":\"no\"},\"email\":\"Yes@Example.com\"}"
+                .getBytes(StandardCharsets.UTF_8))).isEqualTo("yes@example.com");
+        assertThat(RateLimitFilter.emailOf("not json".getBytes(StandardCharsets.UTF_8))).isNull();
+        assertThat(RateLimitFilter.emailOf("{\"email\":42}".getBytes(StandardCharsets.UTF_8))).isNull();
+    }
+
+    private MockHttpServletResponse login(String ip, String email) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(post("/api/auth/login", ip, "{\"email\":\"" + email + "\",\"password\":\"x\"}"),
+                response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest post(String path, String ip, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static RateLimitProperties.Limit limit(int capacity, Duration refillPeriod) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setCapacity(capacity);
+        limit.setRefillPeriod(refillPeriod);
+        return limit;
+    }
+}
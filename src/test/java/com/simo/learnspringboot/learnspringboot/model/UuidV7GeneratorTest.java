@@ -0,0 +1,73 @@
+package com.simo.learnspringboot.learnspringboot.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7GeneratorTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00.123Z");
+
+    @Test
+    void shouldSetVersionVariantAndTimestamp() {
+        UUID id = new UuidV7Generator(Clock.fixed(NOW, ZoneOffset.UTC)).generate();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(id.getMostSignificantBits() >>> 16).isEqualTo(NOW.toEpochMilli());
+    }
+
+    @Test
+    void shouldStayOrderedWithinOneMillisecond() {
+        UuidV7Generator generator = new UuidV7Generator(Clock.fixed(NOW, ZoneOffset.UTC));
+
+        List<UUID> ids = new ArrayList<>();
+        // More ids than the 12-bit counter holds, so it has to carry into the timestamp.
+        for (int i = 0; i < 5_000; i++) {
+            ids.add(generator.generate());
+        }
+
+        assertThat(ids).isSortedAccordingTo(UuidV7GeneratorTest::unsigned).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void shouldStayOrderedWhenTheClockStepsBack() {
+        Instant[] now = {NOW};
+        UuidV7Generator generator = new UuidV7Generator(new Clock() {
+            @Override
+            public Instant instant() {
+                return now[0];
+            }
+
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+        });
+
+        UUID before = generator.generate();
+        now[0] = NOW.minusSeconds(1);
+        UUID after = generator.generate();
+
+        assertThat(unsigned(after, before)).isPositive();
+    }
+
+    // UUID.compareTo compares signed longs; database indexes order the bytes as unsigned.
+    private static int unsigned(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}
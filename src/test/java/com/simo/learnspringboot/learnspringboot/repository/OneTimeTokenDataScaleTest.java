@@ -0,0 +1,102 @@
+package com.simo.learnspringboot.learnspringboot.repository;
+
+import com.simo.learnspringboot.learnspringboot.model.TokenType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares a token lookup on the old schema, where the reset token was an unindexed column of users, with the
+ * indexed one_time_tokens table, on a database seeded with a million users. Excluded from the default build;
+ * run with {@code mvn -Pdata-scale test} and scale with {@code -DdataScale.users=...}. Timings are logged; the
+ * speed-up is only asserted at full scale, the use of the index at any scale.
+ */
+@Tag("data-scale")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OneTimeTokenDataScaleTest {
+
+    private static final Logger log = LoggerFactory.getLogger(OneTimeTokenDataScaleTest.class);
+
+    private static final int FULL_SCALE = 1_000_000;
+    private static final int USERS = Integer.getInteger("dataScale.users", FULL_SCALE);
+    private static final int LEGACY_LOOKUPS = 20;
+    private static final int INDEXED_LOOKUPS = 2_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OneTimeTokenRepository oneTimeTokenRepository;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("""
+                insert into users (id, verified, name, email, password, role)
+                select random_uuid(), true, 'scale-' || x, 'scale-' || x || '@example.com', 'hash', 'ROLE_USER'
+                from system_range(1, ?)""", USERS);
+        jdbcTemplate.update("""
+                insert into one_time_tokens (id, token_hash, type, user_id, expires_at)
+                select random_uuid(), 'token-' || name, 'PASSWORD_RESET', id, dateadd(minute, 20, current_timestamp)
+                from users where name like 'scale-%'""");
+
+        // The users table as it was before one_time_tokens: the token was a plain, unindexed column.
+        jdbcTemplate.execute("""
+                create table legacy_users as
+                select id, name, email, password, role, 'token-' || name as password_reset_token from users
+                where name like 'scale-%'""");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.execute("drop table legacy_users");
+        jdbcTemplate.update("delete from one_time_tokens");
+        jdbcTemplate.update("delete from users where name like 'scale-%'");
+    }
+
+    @Test
+    void indexedTokenLookupShouldNotScanTheUsers() {
+        String plan = jdbcTemplate.queryForObject("""
+                explain select t.id, u.id from one_time_tokens t join users u on u.id = t.user_id
+                where t.token_hash = 'token-scale-1' and t.type = 'PASSWORD_RESET'""", String.class);
+        assertThat(plan).containsIgnoringCase("ux_one_time_tokens_token_hash");
+
+        long legacy = medianNanos(LEGACY_LOOKUPS, user -> assertThat(jdbcTemplate.queryForList(
+                "select id from legacy_users where password_reset_token = ?", "token-scale-" + user)).hasSize(1));
+        long indexed = medianNanos(INDEXED_LOOKUPS, user -> assertThat(oneTimeTokenRepository.findByTokenHashAndType(
+                "token-scale-" + user, TokenType.PASSWORD_RESET)).isPresent());
+
+        log.info("Token lookup over {} users: legacy column {} µs, one_time_tokens {} µs (median)",
+                USERS, legacy / 1_000, indexed / 1_000);
+        // A scan only falls far behind a probe once the table is large; smaller runs rely on the plan check above.
+        if (USERS >= FULL_SCALE) {
+            assertThat(indexed).isLessThan(legacy / 10);
+        }
+    }
+
+    private static long medianNanos(int lookups, IntConsumer lookup) {
+        long[] samples = new long[lookups];
+        for (int i = 0; i < lookups; i++) {
+            int user = ThreadLocalRandom.current().nextInt(1, USERS + 1);
+            long start = System.nanoTime();
+            lookup.accept(user);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[lookups / 2];
+    }
+}
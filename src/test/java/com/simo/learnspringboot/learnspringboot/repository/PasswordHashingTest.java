@@ -1,13 +1,16 @@
 package com.simo.learnspringboot.learnspringboot.repository;
 
+import com.simo.learnspringboot.learnspringboot.dto.LoginRequestDto;
 import com.simo.learnspringboot.learnspringboot.dto.RegisterRequestDto;
 import com.simo.learnspringboot.learnspringboot.model.User;
+import com.simo.learnspringboot.learnspringboot.security.PasswordHashCalibration;
 import com.simo.learnspringboot.learnspringboot.service.AuthService;
 import com.simo.learnspringboot.learnspringboot.service.EmailService;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Optional;
@@ -44,6 +47,9 @@ public class PasswordHashingTest {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private PasswordHashCalibration calibration;
+
     // We no longer need @MockBean or any EmailService field here.
     // Spring will automatically inject the mock from our TestConfig into the AuthService.
 
@@ -62,4 +68,22 @@ public class PasswordHashingTest {
         boolean matches = passwordEncoder.matches(newUser.password(), user.get().getPassword());
         assertThat(matches).isTrue();
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenLoggingInWithWeakerHash_thenPasswordIsRehashedWithCurrentSettings() {
+        User user = new User();
+        user.setName("legacy");
+        user.setEmail("legacy-hash@example.com");
+        user.setPassword(new BCryptPasswordEncoder(4).encode("Password@123"));
+        user.setRole("ROLE_USER");
+        user.setVerified(true);
+        userRepository.save(user);
+
+        authService.login(new LoginRequestDto("legacy-hash@example.com", "Password@123"));
+
+        String rehashed = userRepository.findByEmail("legacy-hash@example.com").orElseThrow().getPassword();
+        assertThat(rehashed).startsWith("{bcrypt}$2a$" + String.format("%02d", calibration.strength()) + "$");
+        assertThat(passwordEncoder.matches("Password@123", rehashed)).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(rehashed)).isFalse();
+    }
+}
@@ -0,0 +1,159 @@
+package com.simo.learnspringboot.learnspringboot.repository;
+
+import com.simo.learnspringboot.learnspringboot.config.ReadReplicaConfig;
+import com.simo.learnspringboot.learnspringboot.config.ReadReplicaProperties;
+import com.simo.learnspringboot.learnspringboot.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and a replica. Nothing replicates between them, so a row
+ * written to only one of them shows which one a read went to.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ReadReplicaConfig.class)
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=" + ReadReplicaRoutingTest.PRIMARY_URL,
+        "app.read-replicas.instances[0].url=" + ReadReplicaRoutingTest.REPLICA_URL,
+        "app.read-replicas.instances[0].username=sa"
+})
+class ReadReplicaRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    private static final JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+    private static final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+    }
+
+    @BeforeEach
+    void emptyTheCaches() {
+        // Otherwise the second-level cache answers lookups before any datasource is asked.
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        primary.update("delete from users");
+        replica.update("delete from users");
+    }
+
+    @Test
+    void writesShouldGoToThePrimary() {
+        userRepository.save(user("written@example.com"));
+
+        assertThat(countUsers(primary, "written@example.com")).isOne();
+        assertThat(countUsers(replica, "written@example.com")).isZero();
+    }
+
+    @Test
+    void readOnlyLookupsShouldGoToTheReplica() {
+        insertUser(replica, "replicated@example.com");
+
+        assertThat(userRepository.findByEmail("replicated@example.com")).isPresent();
+        assertThat(userRepository.findCredentialsByEmail("replicated@example.com")).isPresent();
+        assertThat(userRepository.findAll()).extracting(User::getEmail).containsExactly("replicated@example.com");
+    }
+
+    @Test
+    void readWriteTransactionsShouldReadFromThePrimary() {
+        insertUser(replica, "replicated@example.com");
+
+        Long count = new TransactionTemplate(transactionManager).execute(status -> userRepository.count());
+
+        assertThat(count).isZero();
+    }
+
+    @Test
+    void aUserWrittenWithinTheReplicaLagShouldBeReadFromThePrimary() {
+        // Saved on the primary only: the replica has not caught up yet.
+        userRepository.save(user("just-verified@example.com"));
+        entityManagerFactory.getCache().evictAll();
+
+        assertThat(userRepository.findByEmail("just-verified@example.com")).isPresent();
+        // The credentials query is wrapped by its caller, CustomUserDetailsService.
+        assertThat(ReadConsistency.readingUser("just-verified@example.com",
+                () -> userRepository.findCredentialsByEmail("just-verified@example.com"))).isPresent();
+        // Lookups of other users still go to the replica.
+        assertThat(userRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    void onPrimaryShouldSeeAWriteMadeByAnotherNode() {
+        // Verified through another node: this one recorded no write, and its replica still has the old row.
+        UUID id = UUID.randomUUID();
+        insertUser(primary, id, "verified-elsewhere@example.com", true);
+        insertUser(replica, id, "verified-elsewhere@example.com", false);
+
+        assertThat(userRepository.findByEmail("verified-elsewhere@example.com"))
+                .hasValueSatisfying(user -> assertThat(user.isVerified()).isFalse());
+        assertThat(ReadConsistency.readingUser("verified-elsewhere@example.com",
+                () -> userRepository.findCredentialsByEmail("verified-elsewhere@example.com")))
+                .hasValueSatisfying(credentials -> assertThat(credentials.verified()).isFalse());
+
+        // The replica's row is in the second-level cache by now; the primary read must not be served from it.
+        assertThat(ReadConsistency.onPrimary(() -> userRepository.findByEmail("verified-elsewhere@example.com")))
+                .hasValueSatisfying(user -> assertThat(user.isVerified()).isTrue());
+        assertThat(ReadConsistency.onPrimary(
+                () -> userRepository.findCredentialsByEmail("verified-elsewhere@example.com")))
+                .hasValueSatisfying(credentials -> assertThat(credentials.verified()).isTrue());
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setName("Routed");
+        user.setEmail(email);
+        user.setPassword("hash");
+        user.setRole("ROLE_USER");
+        return user;
+    }
+
+    private static void insertUser(JdbcTemplate database, String email) {
+        insertUser(database, UUID.randomUUID(), email, true);
+    }
+
+    private static void insertUser(JdbcTemplate database, UUID id, String email, boolean verified) {
+        database.update("insert into users (id, verified, name, email, password, role) values (?, ?, ?, ?, ?, ?)",
+                id, verified, "Routed", email, "hash", "ROLE_USER");
+    }
+
+    private static int countUsers(JdbcTemplate database, String email) {
+        return database.queryForObject("select count(*) from users where email = ?", Integer.class, email);
+    }
+}
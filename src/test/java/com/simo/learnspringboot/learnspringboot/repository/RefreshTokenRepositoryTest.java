@@ -0,0 +1,84 @@
+package com.simo.learnspringboot.learnspringboot.repository;
+
+import com.simo.learnspringboot.learnspringboot.model.RefreshToken;
+import com.simo.learnspringboot.learnspringboot.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class RefreshTokenRepositoryTest {
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void shouldFindTokenByHashWithItsUser() {
+        User user = saveUser("alice@example.com");
+        saveToken(user, "hash-1", UUID.randomUUID());
+        entityManager.flush();
+        entityManager.clear();
+
+        RefreshToken found = refreshTokenRepository.findByTokenHash("hash-1").orElseThrow();
+
+        assertThat(found.getUser().getEmail()).isEqualTo("alice@example.com");
+    }
+
+    @Test
+    void shouldRevokeOnlyTheGivenFamily() {
+        User user = saveUser("bob@example.com");
+        UUID family = UUID.randomUUID();
+        saveToken(user, "hash-a", family);
+        saveToken(user, "hash-b", family);
+        saveToken(user, "hash-other", UUID.randomUUID());
+
+        int revoked = refreshTokenRepository.revokeFamily(family, Instant.now());
+        entityManager.clear();
+
+        assertThat(revoked).isEqualTo(2);
+        assertThat(refreshTokenRepository.findByTokenHash("hash-a").orElseThrow().getRevokedAt()).isNotNull();
+        assertThat(refreshTokenRepository.findByTokenHash("hash-other").orElseThrow().getRevokedAt()).isNull();
+    }
+
+    @Test
+    void shouldRevokeAllTokensOfAUser() {
+        User user = saveUser("carol@example.com");
+        User other = saveUser("dave@example.com");
+        saveToken(user, "hash-1", UUID.randomUUID());
+        saveToken(user, "hash-2", UUID.randomUUID());
+        saveToken(other, "hash-3", UUID.randomUUID());
+
+        int revoked = refreshTokenRepository.revokeAllForUser(user, Instant.now());
+
+        assertThat(revoked).isEqualTo(2);
+    }
+
+    private User saveUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setRole("ROLE_USER");
+        return userRepository.save(user);
+    }
+
+    private void saveToken(User user, String hash, UUID family) {
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(hash);
+        token.setFamilyId(family);
+        token.setUser(user);
+        token.setCreatedAt(Instant.now());
+        token.setExpiresAt(Instant.now().plusSeconds(600));
+        refreshTokenRepository.save(token);
+    }
+}
@@ -1,21 +1,32 @@
 package com.simo.learnspringboot.learnspringboot.repository;
 
 import com.simo.learnspringboot.learnspringboot.model.User;
+import com.simo.learnspringboot.learnspringboot.model.UserChangedEvent;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 
-import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
+@RecordApplicationEvents
 class UserRepositoryTest {
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
     @Test
     void shouldSaveAndFindByEmail() {
         // given
@@ -52,32 +63,66 @@ class UserRepositoryTest {
     }
 
     @Test
-    void shouldGetUserByPasswordResetToken() {
+    void shouldPublishUserChangedEventOnUpdate() {
         User user = new User();
-        user.setEmail("simo@gmail.com");
-        user.setPasswordResetToken("token");
-        userRepository.save(user);
+        user.setName("Bob");
+        user.setEmail("bob@example.com");
+        user.setPassword("oldHash");
+        user = entityManager.persistAndFlush(user);
+        applicationEvents.clear();
 
-        Optional<User> found = userRepository.findByPasswordResetToken("token");
+        user.setRole("ROLE_ADMIN");
+        entityManager.flush();
 
-        assertThat(found).isPresent();
+        assertThat(applicationEvents.stream(UserChangedEvent.class))
+                .containsExactly(new UserChangedEvent("bob@example.com"));
     }
 
     @Test
-    void shouldUpdateUserPasswordResetTokenAndExpiryDate() {
-        // given
+    void shouldPublishUserChangedEventOnInsert() {
         User user = new User();
-        user.setName("Simo");
-        user.setEmail("simo@gmail.com");
+        user.setName("Frank");
+        user.setEmail("frank@example.com");
+        entityManager.persistAndFlush(user);
 
-        userRepository.save(user);
+        assertThat(applicationEvents.stream(UserChangedEvent.class))
+                .containsExactly(new UserChangedEvent("frank@example.com"));
+    }
+
+    @Test
+    void shouldLoadCredentialsWithoutManagingTheUser() {
+        User user = new User();
+        user.setName("Carol");
+        user.setEmail("carol@example.com");
+        user.setPassword("hash");
+        user.setRole("ROLE_USER");
+        user.setVerified(true);
+        entityManager.persistAndFlush(user);
+        entityManager.clear();
 
-        LocalDateTime expireDate = LocalDateTime.now().plusMinutes(20);
-        user.setTokenExpiryDate(expireDate);
-        user.setPasswordResetToken("token");
+        Optional<UserCredentials> credentials = userRepository.findCredentialsByEmail("carol@example.com");
 
-        User result = userRepository.save(user);
-        assertThat(result.getPasswordResetToken()).isEqualTo("token");
-        assertThat(result.getTokenExpiryDate()).isEqualTo(expireDate);
+        assertThat(credentials).contains(new UserCredentials("carol@example.com", "hash", "ROLE_USER", true));
+        // Nothing was hydrated, so there is nothing to dirty-check at flush.
+        assertThat(entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+        assertThat(userRepository.findCredentialsByEmail("nobody@example.com")).isEmpty();
+    }
+
+    @Test
+    void shouldAssignTimeOrderedIdsInMemory() {
+        User first = new User();
+        first.setName("Dave");
+        first.setEmail("dave@example.com");
+        User second = new User();
+        second.setName("Erin");
+        second.setEmail("erin@example.com");
+
+        // persist assigns the id without a round trip, so the inserts can still be batched at flush.
+        entityManager.persist(first);
+        entityManager.persist(second);
+
+        assertThat(first.getId().version()).isEqualTo(7);
+        assertThat(Long.compareUnsigned(first.getId().getMostSignificantBits(),
+                second.getId().getMostSignificantBits())).isNegative();
     }
 }
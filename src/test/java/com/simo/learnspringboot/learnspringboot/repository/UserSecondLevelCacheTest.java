@@ -0,0 +1,114 @@
+package com.simo.learnspringboot.learnspringboot.repository;
+
+import com.simo.learnspringboot.learnspringboot.config.SecondLevelCacheConfig;
+import com.simo.learnspringboot.learnspringboot.config.SecondLevelCacheProperties;
+import com.simo.learnspringboot.learnspringboot.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.cache.CacheManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Not rolled back: the caches are only written when a transaction commits.
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({SecondLevelCacheConfig.class, UserSecondLevelCacheTest.Config.class})
+class UserSecondLevelCacheTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        SecondLevelCacheProperties secondLevelCacheProperties() {
+            SecondLevelCacheProperties properties = new SecondLevelCacheProperties();
+            properties.getRegions().put("users", new SecondLevelCacheProperties.Region());
+            properties.getRegions().put("users-by-email", new SecondLevelCacheProperties.Region());
+            return properties;
+        }
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager hibernateCacheManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void repeatedLookupsByEmailShouldIssueNoSql() {
+        userRepository.save(user("cached@example.com", "Cached"));
+        userRepository.findByEmail("cached@example.com");
+        statistics.clear();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(userRepository.findByEmail("cached@example.com")).get()
+                    .extracting(User::getName).isEqualTo("Cached");
+        }
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getNaturalIdCacheHitCount()).isEqualTo(3);
+        assertThat(statistics.getDomainDataRegionStatistics("users").getHitCount()).isEqualTo(3);
+    }
+
+    @Test
+    void savingShouldUpdateTheCachedUser() {
+        User user = userRepository.save(user("renamed@example.com", "Before"));
+        user.setName("After");
+        userRepository.save(user);
+        statistics.clear();
+
+        assertThat(userRepository.findByEmail("renamed@example.com")).get()
+                .extracting(User::getName).isEqualTo("After");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void bulkDeletesShouldInvalidateTheCache() {
+        User user = userRepository.save(user("swept@example.com", "Swept"));
+        userRepository.findByEmail("swept@example.com");
+
+        userRepository.deleteAllByIdInBatch(List.of(user.getId()));
+
+        assertThat(userRepository.findByEmail("swept@example.com")).isEmpty();
+    }
+
+    @Test
+    void regionsShouldBeTheConfiguredOnes() {
+        assertThat(hibernateCacheManager.getCacheNames()).contains("users", "users-by-email");
+    }
+
+    private static User user(String email, String name) {
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email);
+        user.setPassword("hash");
+        user.setRole("ROLE_USER");
+        return user;
+    }
+}
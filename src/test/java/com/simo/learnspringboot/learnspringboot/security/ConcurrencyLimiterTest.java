@@ -0,0 +1,77 @@
+package com.simo.learnspringboot.learnspringboot.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrencyLimiterTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(2).toNanos();
+
+    private final ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 2, 6, Duration.ofSeconds(1), 0.5);
+
+    @Test
+    @DisplayName("Should refuse requests beyond the limit until one is released")
+    void shouldRefuseBeyondLimit() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+
+        assertThat(limiter.tryAcquire()).isFalse();
+        limiter.release(FAST, false);
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.inFlight()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should back off multiplicatively on slow or failed requests, down to the minimum")
+    void shouldBackOffOnOverload() {
+        limiter.tryAcquire();
+        limiter.release(SLOW, false);
+        assertThat(limiter.limit()).isEqualTo(2);
+
+        limiter.tryAcquire();
+        limiter.release(FAST, true);
+        assertThat(limiter.limit()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should grow by one per fast request while the limit is in use, up to the maximum")
+    void shouldGrowWhileUsed() {
+        for (int round = 0; round < 5; round++) {
+            int admitted = 0;
+            while (limiter.tryAcquire()) {
+                admitted++;
+            }
+            for (int i = 0; i < admitted; i++) {
+                limiter.release(FAST, false);
+            }
+        }
+
+        assertThat(limiter.limit()).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("Should not grow from requests that never came near the limit")
+    void shouldNotGrowWhileIdle() {
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+            limiter.release(FAST, false);
+        }
+
+        assertThat(limiter.limit()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldRejectInvalidSettings() {
+        assertThatThrownBy(() -> new ConcurrencyLimiter(4, 0, 6, Duration.ofSeconds(1), 0.5))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ConcurrencyLimiter(4, 2, 6, Duration.ofSeconds(1), 1.0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -1,14 +1,21 @@
 package com.simo.learnspringboot.learnspringboot.security;
 
+import com.simo.learnspringboot.learnspringboot.config.ReadReplicaProperties;
+import com.simo.learnspringboot.learnspringboot.config.UserDetailsCacheProperties;
 import com.simo.learnspringboot.learnspringboot.model.User;
+import com.simo.learnspringboot.learnspringboot.model.UserChangedEvent;
+import com.simo.learnspringboot.learnspringboot.repository.UserCredentials;
 import com.simo.learnspringboot.learnspringboot.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.core.CredentialsContainer;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -18,6 +25,7 @@ import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -25,6 +33,11 @@ import static org.mockito.Mockito.when;
 public class CustomUserDetailsServiceTest {
     @Mock UserRepository userRepository;
 
+    @Spy UserDetailsCache userDetailsCache =
+            new UserDetailsCache(new UserDetailsCacheProperties(), new SimpleMeterRegistry());
+
+    @Spy ReadReplicaProperties readReplicaProperties = new ReadReplicaProperties();
+
     @InjectMocks CustomUserDetailsService customUserDetailsService;
 
     @Test
@@ -38,8 +51,8 @@ public class CustomUserDetailsServiceTest {
         user.setVerified(true);
 
         // expect
-        when(userRepository.findByEmail("simo@gmail.com"))
-                .thenReturn(Optional.of(user));
+        when(userRepository.findCredentialsByEmail("simo@gmail.com"))
+                .thenReturn(Optional.of(credentialsOf(user)));
 
         // action
         UserDetails userDetails = customUserDetailsService.loadUserByUsername("simo@gmail.com");
@@ -55,14 +68,14 @@ public class CustomUserDetailsServiceTest {
                 .containsExactly(user.getRole());
 
         // verification
-        verify(userRepository).findByEmail(user.getEmail());
+        verify(userRepository).findCredentialsByEmail(user.getEmail());
     }
 
     @Test
     @DisplayName("Should return UserDetails when user is found by email")
     void loadUserByUsername_UserNotFound_ThrowUsernameNotFoundException() {
         String email = "simo@gmail.com";
-        when(userRepository.findByEmail(email))
+        when(userRepository.findCredentialsByEmail(email))
                 .thenReturn(Optional.empty());
 
         // action
@@ -75,8 +88,26 @@ public class CustomUserDetailsServiceTest {
         assertThat(thrown).isNotNull();
         assertThat(thrown.getMessage()).isEqualTo(expectedMessage);
 
-        // verification
-        verify(userRepository).findByEmail(email);
+        // verification: without replicas the first read already came from the primary
+        verify(userRepository, times(1)).findCredentialsByEmail(email);
+    }
+
+    @Test
+    @DisplayName("Should re-read the primary when the replica has not seen the verification yet")
+    void loadUserByUsername_UnverifiedOnTheReplica_ReadsThePrimary() {
+        String email = "verified-elsewhere@gmail.com";
+        User stale = verifiedUser(email);
+        stale.setVerified(false);
+        User current = verifiedUser(email);
+        readReplicaProperties.getInstances().add(new ReadReplicaProperties.Instance());
+        when(userRepository.findCredentialsByEmail(email))
+                .thenReturn(Optional.of(credentialsOf(stale)))
+                .thenReturn(Optional.of(credentialsOf(current)));
+
+        UserDetails userDetails = customUserDetailsService.loadUserByUsername(email);
+
+        assertThat(userDetails.getUsername()).isEqualTo(email);
+        verify(userRepository, times(2)).findCredentialsByEmail(email);
     }
 
     // Add this new test method
@@ -91,7 +122,7 @@ public class CustomUserDetailsServiceTest {
         unverifiedUser.setRole("ROLE_USER");
         unverifiedUser.setVerified(false); // Explicitly unverified
 
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(unverifiedUser));
+        when(userRepository.findCredentialsByEmail(email)).thenReturn(Optional.of(credentialsOf(unverifiedUser)));
 
         // Act & Assert
         DisabledException thrown = assertThrows(DisabledException.class, () -> {
@@ -99,4 +130,79 @@ public class CustomUserDetailsServiceTest {
         });
 
         assertThat(thrown.getMessage()).isEqualTo("User account is not verified. Please check your email.");
-    }}
+    }
+
+    @Test
+    @DisplayName("Should serve repeated lookups from the cache")
+    void loadUserByUsername_RepeatedLookup_HitsDatabaseOnce() {
+        User user = verifiedUser("cached@gmail.com");
+        when(userRepository.findCredentialsByEmail("cached@gmail.com")).thenReturn(Optional.of(credentialsOf(user)));
+
+        customUserDetailsService.loadUserByUsername("cached@gmail.com");
+        customUserDetailsService.loadUserByUsername("cached@gmail.com");
+
+        verify(userRepository, times(1)).findCredentialsByEmail("cached@gmail.com");
+        assertThat(userDetailsCache.stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep the cached password when a returned instance has its credentials erased")
+    void loadUserByUsername_ErasedCredentials_DoNotLeakIntoCache() {
+        User user = verifiedUser("erase@gmail.com");
+        when(userRepository.findCredentialsByEmail("erase@gmail.com")).thenReturn(Optional.of(credentialsOf(user)));
+
+        // ProviderManager does this to the details after a successful login.
+        ((CredentialsContainer) customUserDetailsService.loadUserByUsername("erase@gmail.com")).eraseCredentials();
+
+        assertThat(customUserDetailsService.loadUserByUsername("erase@gmail.com").getPassword())
+                .isEqualTo("password");
+    }
+
+    @Test
+    @DisplayName("Should reload the user after a change event")
+    void loadUserByUsername_AfterUserChanged_ReloadsUser() {
+        User user = verifiedUser("changed@gmail.com");
+        when(userRepository.findCredentialsByEmail("changed@gmail.com")).thenReturn(Optional.of(credentialsOf(user)));
+        customUserDetailsService.loadUserByUsername("changed@gmail.com");
+
+        user.setPassword("newHash");
+        when(userRepository.findCredentialsByEmail("changed@gmail.com")).thenReturn(Optional.of(credentialsOf(user)));
+        userDetailsCache.onUserChanged(new UserChangedEvent("changed@gmail.com"));
+
+        assertThat(customUserDetailsService.loadUserByUsername("changed@gmail.com").getPassword()).isEqualTo("newHash");
+        verify(userRepository, times(2)).findCredentialsByEmail("changed@gmail.com");
+    }
+
+    @Test
+    @DisplayName("Should store the upgraded hash on the user and return details carrying it")
+    void updatePassword_StoresNewHash() {
+        User user = new User();
+        user.setEmail("rehash@example.com");
+        user.setPassword("$2a$04$weakweakweakweakweakweOu4cZ0m3kz1J1sZ0qX5YQm9rRj9m6y");
+        user.setRole("ROLE_USER");
+        user.setVerified(true);
+        when(userRepository.findByEmail("rehash@example.com")).thenReturn(Optional.of(user));
+        UserDetails current = org.springframework.security.core.userdetails.User
+                .withUsername("rehash@example.com").password(user.getPassword()).roles("USER").build();
+
+        UserDetails updated = customUserDetailsService.updatePassword(current, "{bcrypt}$2a$12$stronger");
+
+        assertThat(user.getPassword()).isEqualTo("{bcrypt}$2a$12$stronger");
+        assertThat(updated.getPassword()).isEqualTo("{bcrypt}$2a$12$stronger");
+        assertThat(updated.getUsername()).isEqualTo("rehash@example.com");
+        assertThat(updated.getAuthorities()).isEqualTo(current.getAuthorities());
+    }
+
+    private User verifiedUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("password");
+        user.setRole("ROLE_USER");
+        user.setVerified(true);
+        return user;
+    }
+
+    private UserCredentials credentialsOf(User user) {
+        return new UserCredentials(user.getEmail(), user.getPassword(), user.getRole(), user.isVerified());
+    }
+}
@@ -0,0 +1,139 @@
+package com.simo.learnspringboot.learnspringboot.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Cross-validates the fast minting path against jjwt: every token must be accepted by the jjwt parser and carry
+ * byte-for-byte the payload the jjwt builder produces for the same claims. ECDSA signatures are randomized, so
+ * only the payloads can be compared directly.
+ */
+class Es256TokenMinterTest {
+
+    private static final long ISSUED_AT = 1_735_689_600L; // 2025-01-01T00:00:00Z
+    private static final long EXPIRES_AT = ISSUED_AT + 900;
+
+    private final KeyPair keyPair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+    private final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKey(keyPair.getPublic())
+            // The fixed timestamps are in the past; skew keeps the parser from rejecting them as expired.
+            .setAllowedClockSkewSeconds(Long.MAX_VALUE / 1000)
+            .build();
+    private final Es256TokenMinter minter = new Es256TokenMinter("key-1", keyPair.getPrivate());
+
+    static Stream<String> subjects() {
+        return Stream.of(
+                "user@example.com",
+                "",
+                "quote\"inside@example.com",
+                "back\\slash@example.com",
+                "slash/and<html>&amp;",
+                "tab\tnew\nline\rreturn\bback\fform",
+                "nul\u0000unit\u001Fdel\u007F",
+                "ünïcödé@exämple.de",
+                "用户@例子.中国",
+                "emoji-😀@example.com",
+                "x".repeat(2_000));
+    }
+
+    @ParameterizedTest
+    @MethodSource("subjects")
+    @DisplayName("Should write exactly the payload the jjwt builder writes")
+    void shouldMatchJjwtBuilderPayloadByteForByte(String subject) {
+        String jti = UUID.randomUUID().toString();
+
+        String fast = minter.mint(jti, subject, "ROLE_USER", true, ISSUED_AT, EXPIRES_AT);
+        String reference = Jwts.builder()
+                .setId(jti)
+                .setSubject(subject)
+                .claim(TokenClaims.ROLE_CLAIM, "ROLE_USER")
+                .claim(TokenClaims.VERIFIED_CLAIM, true)
+                .setIssuedAt(new Date(ISSUED_AT * 1000))
+                .setExpiration(new Date(EXPIRES_AT * 1000))
+                .signWith(keyPair.getPrivate(), SignatureAlgorithm.ES256)
+                .compact();
+
+        assertThat(fast.split("\\.")[1]).isEqualTo(reference.split("\\.")[1]);
+    }
+
+    @ParameterizedTest
+    @MethodSource("subjects")
+    @DisplayName("Should round-trip every claim through the jjwt parser")
+    void shouldRoundTripThroughJjwtParser(String subject) {
+        String token = minter.mint("id-1", subject, "ROLE_ADMIN", false, ISSUED_AT, EXPIRES_AT);
+
+        Jws<Claims> jws = parser.parseClaimsJws(token);
+        Claims claims = jws.getBody();
+
+        assertThat(jws.getHeader().getAlgorithm()).isEqualTo("ES256");
+        assertThat(jws.getHeader().getKeyId()).isEqualTo("key-1");
+        assertThat(claims.getId()).isEqualTo("id-1");
+        assertThat(claims.getSubject()).isEqualTo(subject);
+        assertThat(claims.get(TokenClaims.ROLE_CLAIM, String.class)).isEqualTo("ROLE_ADMIN");
+        assertThat(claims.get(TokenClaims.VERIFIED_CLAIM, Boolean.class)).isFalse();
+        assertThat(claims.getIssuedAt()).isEqualTo(new Date(ISSUED_AT * 1000));
+        assertThat(claims.getExpiration()).isEqualTo(new Date(EXPIRES_AT * 1000));
+    }
+
+    @Test
+    @DisplayName("Should write a compact header naming the algorithm and the key")
+    void shouldWriteHeaderWithKid() {
+        String token = minter.mint("id-1", "user@example.com", null, null, ISSUED_AT, EXPIRES_AT);
+
+        String header = new String(Base64.getUrlDecoder().decode(token.split("\\.")[0]), StandardCharsets.UTF_8);
+
+        assertThat(header).isEqualTo("{\"alg\":\"ES256\",\"kid\":\"key-1\"}");
+    }
+
+    @Test
+    @DisplayName("Should omit the principal claims when they are not given")
+    void shouldOmitNullClaims() {
+        String token = minter.mint("id-1", "user@example.com", null, null, ISSUED_AT, EXPIRES_AT);
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+
+        assertThat(claims).doesNotContainKeys(TokenClaims.ROLE_CLAIM, TokenClaims.VERIFIED_CLAIM);
+        assertThat(claims.getSubject()).isEqualTo("user@example.com");
+    }
+
+    @Test
+    @DisplayName("Should produce tokens the parser rejects once the payload is altered")
+    void shouldBeRejectedWhenTampered() {
+        String token = minter.mint("id-1", "user@example.com", "ROLE_USER", true, ISSUED_AT, EXPIRES_AT);
+        String[] parts = token.split("\\.");
+        String forgedPayload = minter.mint("id-1", "user@example.com", "ROLE_ADMIN", true, ISSUED_AT, EXPIRES_AT)
+                .split("\\.")[1];
+
+        String tampered = parts[0] + "." + forgedPayload + "." + parts[2];
+
+        assertThatThrownBy(() -> parser.parseClaimsJws(tampered)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    @DisplayName("Should sign correctly when the per-thread Signature is used from many threads")
+    void shouldMintConcurrently() {
+        assertThat(Stream.generate(() -> "user@example.com").limit(500).parallel()
+                .map(subject -> minter.mint("id-1", subject, "ROLE_USER", true, ISSUED_AT, EXPIRES_AT)))
+                .allSatisfy(token -> assertThat(parser.parseClaimsJws(token).getBody().getSubject())
+                        .isEqualTo("user@example.com"));
+    }
+}
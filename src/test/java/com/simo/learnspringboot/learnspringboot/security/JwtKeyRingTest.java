@@ -0,0 +1,118 @@
+package com.simo.learnspringboot.learnspringboot.security;
+
+import com.simo.learnspringboot.learnspringboot.config.JwtProperties;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtKeyRingTest {
+
+    private MutableClock clock;
+    private JwtKeyRing keyRing;
+    private JwtParser parser;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.now());
+        JwtProperties properties = new JwtProperties();
+        properties.setAccessTokenTtl(Duration.ofMinutes(15));
+        keyRing = new JwtKeyRing(properties, clock);
+        parser = Jwts.parserBuilder().setSigningKeyResolver(keyRing).build();
+    }
+
+    @Test
+    @DisplayName("Should keep verifying tokens of the previous key during the overlap window")
+    void shouldVerifyPreviousKeyDuringOverlap() {
+        String beforeRotation = mint();
+
+        keyRing.rotate();
+        clock.advance(Duration.ofMinutes(14));
+
+        assertThat(parser.parseClaimsJws(beforeRotation).getBody().getSubject()).isEqualTo("user@example.com");
+        assertThat(parser.parseClaimsJws(mint()).getBody().getSubject()).isEqualTo("user@example.com");
+    }
+
+    @Test
+    @DisplayName("Should reject tokens of a retired key and stop publishing it")
+    void shouldRetirePreviousKeyAfterOverlap() {
+        String retiredKid = keyRing.activeKey().kid();
+        String beforeRotation = mint();
+
+        keyRing.rotate();
+        clock.advance(Duration.ofMinutes(15));
+
+        assertThatThrownBy(() -> parser.parseClaimsJws(beforeRotation)).isInstanceOf(SignatureException.class);
+        assertThat(publishedKids()).doesNotContain(retiredKid);
+    }
+
+    @Test
+    @DisplayName("Should publish the next key before it signs anything")
+    void shouldPrePublishNextKey() {
+        List<String> before = publishedKids();
+
+        keyRing.rotate();
+
+        assertThat(before).hasSize(2).contains(keyRing.activeKey().kid());
+    }
+
+    @Test
+    @DisplayName("Should reject a kid the ring does not know")
+    void shouldRejectUnknownKid() {
+        String token = mint();
+        String foreignHeader = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"alg\":\"ES256\",\"kid\":\"someone-else\"}".getBytes());
+
+        String forged = foreignHeader + token.substring(token.indexOf('.'));
+
+        assertThatThrownBy(() -> parser.parseClaimsJws(forged)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    @DisplayName("Should publish JWKs a downstream service can verify tokens with")
+    @SuppressWarnings("unchecked")
+    void shouldPublishUsableJwks() throws Exception {
+        String token = mint();
+        Map<String, String> jwk = ((List<Map<String, String>>) keyRing.jwks().get("keys")).get(0);
+
+        ECPublicKey ours = keyRing.activeKey().publicKey();
+        PublicKey rebuilt = KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(
+                new ECPoint(unsigned(jwk.get("x")), unsigned(jwk.get("y"))), ours.getParams()));
+
+        assertThat(jwk).containsEntry("kty", "EC").containsEntry("crv", "P-256")
+                .containsEntry("alg", "ES256").containsEntry("kid", keyRing.activeKey().kid());
+        assertThat(Jwts.parserBuilder().setSigningKey(rebuilt).build().parseClaimsJws(token).getBody().getSubject())
+                .isEqualTo("user@example.com");
+    }
+
+    private String mint() {
+        long now = clock.instant().getEpochSecond();
+        return keyRing.activeKey().minter().mint("id", "user@example.com", null, null, now, now + 900);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> publishedKids() {
+        return ((List<Map<String, String>>) keyRing.jwks().get("keys")).stream().map(jwk -> jwk.get("kid")).toList();
+    }
+
+    private static BigInteger unsigned(String coordinate) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(coordinate));
+    }
+}
@@ -1,6 +1,8 @@
 package com.simo.learnspringboot.learnspringboot.security;
 
+import com.simo.learnspringboot.learnspringboot.config.JwtProperties;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -10,8 +12,11 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
-import java.security.Key;
+import java.security.PrivateKey;
+import java.time.Duration;
 import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -22,12 +27,15 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
  */
 class JwtUtilTest {
 
+    private JwtKeyRing keyRing;
     private JwtUtil jwtUtil;
 
     @BeforeEach
     void setUp() {
         // A new instance is created before each test to ensure isolation.
-        jwtUtil = new JwtUtil();
+        JwtProperties properties = new JwtProperties();
+        keyRing = new JwtKeyRing(properties);
+        jwtUtil = new JwtUtil(properties, keyRing);
     }
 
     @Nested
@@ -156,39 +164,175 @@ class JwtUtilTest {
         }
     }
 
+    @Nested
+    @DisplayName("Single-pass Verification")
+    class VerifyTokenTests {
+        @Test
+        @DisplayName("Should return the verified claims for a valid token")
+        void shouldReturnClaimsForValidToken() {
+            // Arrange
+            String token = jwtUtil.generateToken("validuser");
+
+            // Act
+            Optional<TokenClaims> claims = jwtUtil.verifyToken(token);
+
+            // Assert
+            assertThat(claims).isPresent();
+            assertThat(claims.get().subject()).isEqualTo("validuser");
+            assertThat(claims.get().issuedAt()).isNotNull();
+            assertThat(claims.get().expiresAt()).isAfter(claims.get().issuedAt());
+        }
+
+        @Test
+        @DisplayName("Should give every token a unique jti")
+        void shouldGiveEveryTokenAUniqueId() {
+            TokenClaims first = jwtUtil.verifyToken(jwtUtil.generateToken("user")).orElseThrow();
+            TokenClaims second = jwtUtil.verifyToken(jwtUtil.generateToken("user")).orElseThrow();
+
+            assertThat(first.jti()).isNotBlank();
+            assertThat(second.jti()).isNotBlank().isNotEqualTo(first.jti());
+        }
+
+        @Test
+        @DisplayName("Should return empty for an expired token")
+        void shouldReturnEmptyForExpiredToken() {
+            String expiredToken = generateTokenWithCustomExpiration("user", -5000);
+
+            assertThat(jwtUtil.verifyToken(expiredToken)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should return empty for a token with a different signature")
+        void shouldReturnEmptyForTokenWithInvalidSignature() {
+            String invalidToken = generateTokenWithDifferentSecret("user");
+
+            assertThat(jwtUtil.verifyToken(invalidToken)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should return empty for malformed and null tokens")
+        void shouldReturnEmptyForMalformedOrNullToken() {
+            assertThat(jwtUtil.verifyToken("not.a.jwt.token")).isEmpty();
+            assertThat(jwtUtil.verifyToken(null)).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Token Lifetime")
+    class TokenLifetimeTests {
+        @Test
+        @DisplayName("Should expire access tokens after the configured TTL")
+        void shouldUseConfiguredAccessTokenTtl() {
+            JwtProperties properties = new JwtProperties();
+            properties.setAccessTokenTtl(Duration.ofMinutes(5));
+            JwtUtil shortLived = new JwtUtil(properties, new JwtKeyRing(properties));
+
+            TokenClaims claims = shortLived.verifyToken(shortLived.generateToken("user")).orElseThrow();
+
+            assertThat(Duration.between(claims.issuedAt(), claims.expiresAt()))
+                    .isBetween(Duration.ofMinutes(5).minusSeconds(1), Duration.ofMinutes(5).plusSeconds(1));
+        }
+    }
+
+    @Nested
+    @DisplayName("Principal Claims")
+    class PrincipalClaimsTests {
+        @Test
+        @DisplayName("Should carry role and verified flag as signed claims")
+        void shouldCarryRoleAndVerifiedClaims() {
+            String token = jwtUtil.generateToken("admin@example.com", "ROLE_ADMIN", true);
+
+            TokenClaims claims = jwtUtil.verifyToken(token).orElseThrow();
+
+            assertThat(claims.subject()).isEqualTo("admin@example.com");
+            assertThat(claims.role()).isEqualTo("ROLE_ADMIN");
+            assertThat(claims.verified()).isTrue();
+            assertThat(claims.hasPrincipalClaims()).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should report missing principal claims for subject-only tokens")
+        void shouldReportMissingPrincipalClaims() {
+            String token = jwtUtil.generateToken("user@example.com");
+
+            TokenClaims claims = jwtUtil.verifyToken(token).orElseThrow();
+
+            assertThat(claims.role()).isNull();
+            assertThat(claims.hasPrincipalClaims()).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Signing Keys")
+    class SigningKeyTests {
+        @Test
+        @DisplayName("Should sign with ES256 and name the active key in the header")
+        void shouldSignWithActiveKey() {
+            String token = jwtUtil.generateToken("user@example.com");
+
+            JwsHeader header = Jwts.parserBuilder().setSigningKeyResolver(keyRing).build()
+                    .parseClaimsJws(token).getHeader();
+
+            assertThat(header.getAlgorithm()).isEqualTo("ES256");
+            assertThat(header.getKeyId()).isEqualTo(keyRing.activeKey().kid());
+        }
+
+        @Test
+        @DisplayName("Should reject tokens signed with the old shared HS256 secret")
+        void shouldRejectLegacySharedSecretTokens() {
+            String legacyToken = Jwts.builder()
+                    .setSubject("user")
+                    .setExpiration(new Date(System.currentTimeMillis() + 100000))
+                    .signWith(Keys.hmacShaKeyFor("superSecretKeyThatShouldBeAtLeast32Characters!".getBytes()),
+                            SignatureAlgorithm.HS256)
+                    .compact();
+
+            assertThat(jwtUtil.verifyToken(legacyToken)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should reject an HS256 token that names one of our keys")
+        void shouldRejectAlgorithmConfusion() {
+            // Classic confusion attack: HMAC over the token with the public key bytes as the secret.
+            String forged = Jwts.builder()
+                    .setHeaderParam("kid", keyRing.activeKey().kid())
+                    .setSubject("admin@example.com")
+                    .setExpiration(new Date(System.currentTimeMillis() + 100000))
+                    .signWith(Keys.hmacShaKeyFor(keyRing.activeKey().publicKey().getEncoded()), SignatureAlgorithm.HS256)
+                    .compact();
+
+            assertThat(jwtUtil.verifyToken(forged)).isEmpty();
+        }
+    }
+
     // --- Helper Methods for generating specific test tokens ---
 
     /**
      * Generates a token with a custom expiration relative to the current time.
-     * Uses the SAME secret key as the class under test.
+     * Uses the SAME signing key as the class under test.
      * @param username The subject of the token.
      * @param expirationOffsetInMillis A positive value for future expiration, negative for past.
      * @return A JWT string.
      */
     private String generateTokenWithCustomExpiration(String username, long expirationOffsetInMillis) {
-        final String SECRET = "superSecretKeyThatShouldBeAtLeast32Characters!";
-        final Key key = Keys.hmacShaKeyFor(SECRET.getBytes());
-        return Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + expirationOffsetInMillis))
-                .signWith(key, SignatureAlgorithm.HS256)
-                .compact();
+        long now = System.currentTimeMillis();
+        return keyRing.activeKey().minter().mint(UUID.randomUUID().toString(), username, null, null,
+                now / 1000, (now + expirationOffsetInMillis) / 1000);
     }
 
     /**
-     * Generates a token with a DIFFERENT secret key to test signature validation.
+     * Generates a token with a DIFFERENT private key under the active kid to test signature validation.
      * @param username The subject of the token.
      * @return A JWT string signed with the wrong key.
      */
     private String generateTokenWithDifferentSecret(String username) {
-        final String OTHER_SECRET = "aCompletelyDifferentSecretKeyThatIsAlsoSecure!";
-        final Key wrongKey = Keys.hmacShaKeyFor(OTHER_SECRET.getBytes());
+        final PrivateKey wrongKey = Keys.keyPairFor(SignatureAlgorithm.ES256).getPrivate();
         return Jwts.builder()
+                .setHeaderParam("kid", keyRing.activeKey().kid())
                 .setSubject(username)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + 100000)) // Valid expiration
-                .signWith(wrongKey, SignatureAlgorithm.HS256)
+                .signWith(wrongKey, SignatureAlgorithm.ES256)
                 .compact();
     }
 }
@@ -0,0 +1,92 @@
+package com.simo.learnspringboot.learnspringboot.security;
+
+import com.simo.learnspringboot.learnspringboot.config.PasswordHashingProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PasswordHashCalibrationTest {
+
+    private final PasswordHashingProperties.Calibration settings = new PasswordHashingProperties().getCalibration();
+
+    @Test
+    @DisplayName("Should pick the strongest strength that fits the latency budget")
+    void shouldPickStrongestStrengthWithinBudget() {
+        // 60 ms at 10, doubling per step: 11 = 120 ms, 12 = 240 ms, 13 = 480 ms.
+        PasswordHashCalibration calibration = PasswordHashCalibration.calibrate(settings, PasswordHashCalibrationTest::doubling);
+
+        assertThat(calibration.strength()).isEqualTo(12);
+        assertThat(calibration.budget()).isEqualTo(Duration.ofMillis(250));
+        assertThat(calibration.measured()).containsOnlyKeys(10, 11, 12, 13);
+    }
+
+    @Test
+    @DisplayName("Should tighten the budget when the per-core throughput floor is stricter than the latency target")
+    void shouldHonourThroughputFloor() {
+        settings.setMinThroughputPerCore(10);
+
+        PasswordHashCalibration calibration = PasswordHashCalibration.calibrate(settings, PasswordHashCalibrationTest::doubling);
+
+        assertThat(calibration.budget()).isEqualTo(Duration.ofMillis(100));
+        assertThat(calibration.strength()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should stay at the minimum strength on a machine too slow for the budget")
+    void shouldNotGoBelowMinimumStrength() {
+        PasswordHashCalibration calibration = PasswordHashCalibration.calibrate(settings,
+                strength -> Duration.ofSeconds(1));
+
+        assertThat(calibration.strength()).isEqualTo(10);
+        assertThat(calibration.measured()).containsOnlyKeys(10);
+    }
+
+    @Test
+    @DisplayName("Should stop timing a candidate after one sample when it is far over budget")
+    void shouldSkipRemainingSamplesWhenFarOverBudget() {
+        List<Integer> timed = new ArrayList<>();
+
+        PasswordHashCalibration.calibrate(settings, strength -> {
+            timed.add(strength);
+            return strength == 10 ? Duration.ofMillis(60) : Duration.ofSeconds(1);
+        });
+
+        assertThat(timed).containsExactly(10, 10, 10, 11);
+    }
+
+    @Test
+    @DisplayName("Should use the fixed strength without timing anything when calibration is off")
+    void shouldUseFixedStrengthWhenDisabled() {
+        settings.setEnabled(false);
+        settings.setStrength(11);
+
+        PasswordHashCalibration calibration = PasswordHashCalibration.calibrate(settings);
+
+        assertThat(calibration.strength()).isEqualTo(11);
+        assertThat(calibration.measured()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should time real BCrypt hashes within the configured range")
+    void shouldCalibrateAgainstRealBcrypt() {
+        settings.setMinStrength(4);
+        settings.setMaxStrength(6);
+        settings.setSamples(1);
+
+        PasswordHashCalibration calibration = PasswordHashCalibration.calibrate(settings);
+
+        assertThat(calibration.strength()).isBetween(4, 6);
+        String hash = new BCryptPasswordEncoder(calibration.strength()).encode("secret");
+        assertThat(hash).startsWith("$2a$0" + calibration.strength() + "$");
+    }
+
+    private static Duration doubling(int strength) {
+        return Duration.ofMillis(60L << (strength - 10));
+    }
+}
@@ -0,0 +1,86 @@
+package com.simo.learnspringboot.learnspringboot.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimiterTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+    private final RateLimiter limiter = new RateLimiter(3, Duration.ofSeconds(10), clock);
+
+    @Test
+    @DisplayName("Should allow a burst of capacity requests and then say how long to wait")
+    void shouldAllowBurstThenRefuse() {
+        assertThat(IntStream.range(0, 3).mapToLong(i -> limiter.tryAcquire("ip-1"))).containsOnly(0L);
+
+        assertThat(limiter.tryAcquire("ip-1")).isEqualTo(10_000);
+        clock.advance(Duration.ofSeconds(4));
+        assertThat(limiter.tryAcquire("ip-1")).isEqualTo(6_000);
+    }
+
+    @Test
+    @DisplayName("Should refill one token per period, never beyond the capacity")
+    void shouldRefillGradually() {
+        IntStream.range(0, 3).forEach(i -> limiter.tryAcquire("ip-1"));
+
+        clock.advance(Duration.ofSeconds(10));
+        assertThat(limiter.tryAcquire("ip-1")).isZero();
+        assertThat(limiter.tryAcquire("ip-1")).isPositive();
+
+        clock.advance(Duration.ofHours(1));
+        assertThat(IntStream.range(0, 3).mapToLong(i -> limiter.tryAcquire("ip-1"))).containsOnly(0L);
+        assertThat(limiter.tryAcquire("ip-1")).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should keep each key's bucket separate")
+    void shouldIsolateKeys() {
+        IntStream.range(0, 3).forEach(i -> limiter.tryAcquire("ip-1"));
+
+        assertThat(limiter.tryAcquire("ip-1")).isPositive();
+        assertThat(limiter.tryAcquire("ip-2")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should evict only the buckets that have refilled completely")
+    void shouldEvictFullBuckets() {
+        limiter.tryAcquire("idle");
+        clock.advance(Duration.ofSeconds(5));
+        IntStream.range(0, 3).forEach(i -> limiter.tryAcquire("busy"));
+        clock.advance(Duration.ofSeconds(5));
+
+        assertThat(limiter.evictIdle()).isEqualTo(1);
+        assertThat(limiter.size()).isEqualTo(1);
+        // The busy key is still drained: eviction must not have handed it a fresh bucket.
+        assertThat(limiter.tryAcquire("busy")).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should allow exactly capacity requests when many threads race for one key")
+    void shouldNotOverAdmitUnderContention() {
+        RateLimiter wide = new RateLimiter(1_000, Duration.ofHours(1), clock);
+        AtomicInteger allowed = new AtomicInteger();
+
+        IntStream.range(0, 20_000).parallel().forEach(i -> {
+            if (wide.tryAcquire("hot") == 0) {
+                allowed.incrementAndGet();
+            }
+        });
+
+        assertThat(allowed).hasValue(1_000);
+    }
+
+    @Test
+    void shouldRejectEmptyLimits() {
+        assertThatThrownBy(() -> new RateLimiter(0, Duration.ofSeconds(1), clock))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
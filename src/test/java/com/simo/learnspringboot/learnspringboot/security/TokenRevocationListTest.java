@@ -0,0 +1,71 @@
+package com.simo.learnspringboot.learnspringboot.security;
+
+import com.simo.learnspringboot.learnspringboot.config.JwtProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenRevocationListTest {
+
+    private MutableClock clock;
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+        JwtProperties properties = new JwtProperties();
+        properties.setAccessTokenTtl(Duration.ofMinutes(15));
+        revocationList = new TokenRevocationList(properties, clock);
+    }
+
+    @Test
+    @DisplayName("Should revoke a single token by jti")
+    void shouldRevokeSingleToken() {
+        TokenClaims revoked = claims("alice", "jti-1", clock.instant());
+        TokenClaims other = claims("alice", "jti-2", clock.instant());
+
+        revocationList.revoke("jti-1", revoked.expiresAt());
+
+        assertThat(revocationList.isRevoked(revoked)).isTrue();
+        assertThat(revocationList.isRevoked(other)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should revoke every token of a user issued up to the revocation")
+    void shouldRevokeTokensIssuedBeforeCutoff() {
+        TokenClaims before = claims("alice", "jti-1", clock.instant().minusSeconds(60));
+        TokenClaims otherUser = claims("bob", "jti-2", clock.instant().minusSeconds(60));
+
+        revocationList.revokeAllIssuedBefore("alice");
+        clock.advance(Duration.ofSeconds(5));
+        TokenClaims after = claims("alice", "jti-3", clock.instant());
+
+        assertThat(revocationList.isRevoked(before)).isTrue();
+        assertThat(revocationList.isRevoked(otherUser)).isFalse();
+        assertThat(revocationList.isRevoked(after)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should purge entries once the tokens they cover have expired")
+    void shouldPurgeExpiredEntries() {
+        revocationList.revoke("jti-1", clock.instant().plus(Duration.ofMinutes(5)));
+        revocationList.revokeAllIssuedBefore("alice");
+
+        clock.advance(Duration.ofMinutes(5));
+        revocationList.purgeExpired();
+        assertThat(revocationList.size()).isEqualTo(1);
+
+        clock.advance(Duration.ofMinutes(11));
+        revocationList.purgeExpired();
+        assertThat(revocationList.size()).isZero();
+    }
+
+    private static TokenClaims claims(String subject, String jti, Instant issuedAt) {
+        return new TokenClaims(subject, issuedAt, issuedAt.plus(Duration.ofMinutes(15)), "ROLE_USER", true, jti);
+    }
+}
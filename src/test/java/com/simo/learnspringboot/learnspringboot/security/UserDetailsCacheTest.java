@@ -0,0 +1,97 @@
+package com.simo.learnspringboot.learnspringboot.security;
+
+import com.simo.learnspringboot.learnspringboot.config.UserDetailsCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserDetailsCacheTest {
+
+    private MutableClock clock;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Should reload an entry once its TTL has passed")
+    void shouldExpireAfterTtl() {
+        UserDetailsCache cache = newCache(true);
+
+        cache.get("user@example.com", loader());
+        clock.advance(Duration.ofMinutes(4));
+        cache.get("user@example.com", loader());
+        clock.advance(Duration.ofMinutes(1));
+        cache.get("user@example.com", loader());
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should hand out copies, never the cached instance")
+    void shouldReturnCopies() {
+        UserDetailsCache cache = newCache(true);
+
+        UserDetails first = cache.get("user@example.com", loader());
+        UserDetails second = cache.get("user@example.com", loader());
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getPassword()).isEqualTo(first.getPassword());
+    }
+
+    @Test
+    @DisplayName("Should not cache loader failures")
+    void shouldNotCacheFailures() {
+        UserDetailsCache cache = newCache(true);
+        Function<String, UserDetails> failing = email -> {
+            loads.incrementAndGet();
+            throw new DisabledException("not verified");
+        };
+
+        assertThatThrownBy(() -> cache.get("user@example.com", failing)).isInstanceOf(DisabledException.class);
+        assertThatThrownBy(() -> cache.get("user@example.com", failing)).isInstanceOf(DisabledException.class);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should delegate every call to the loader when disabled")
+    void shouldBypassCacheWhenDisabled() {
+        UserDetailsCache cache = newCache(false);
+
+        cache.get("user@example.com", loader());
+        cache.get("user@example.com", loader());
+
+        assertThat(loads).hasValue(2);
+    }
+
+    private UserDetailsCache newCache(boolean enabled) {
+        UserDetailsCacheProperties properties = new UserDetailsCacheProperties();
+        properties.setEnabled(enabled);
+        properties.setTtl(Duration.ofMinutes(5));
+        properties.setMaxSize(100);
+        return new UserDetailsCache(properties, new SimpleMeterRegistry(), clock);
+    }
+
+    private Function<String, UserDetails> loader() {
+        return email -> {
+            loads.incrementAndGet();
+            return User.withUsername(email).password("hash").authorities("ROLE_USER").build();
+        };
+    }
+}
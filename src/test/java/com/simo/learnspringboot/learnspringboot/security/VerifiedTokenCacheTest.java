@@ -0,0 +1,100 @@
+package com.simo.learnspringboot.learnspringboot.security;
+
+import com.simo.learnspringboot.learnspringboot.config.JwtProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerifiedTokenCacheTest {
+
+    private MutableClock clock;
+    private AtomicInteger verifications;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+        verifications = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Should verify a token once and serve repeats from the cache")
+    void shouldServeRepeatedTokenFromCache() {
+        VerifiedTokenCache cache = newCache(true);
+        Function<String, Optional<TokenClaims>> verifier = verifierExpiringIn(Duration.ofMinutes(10));
+
+        Optional<TokenClaims> first = cache.getOrVerify("token", verifier);
+        Optional<TokenClaims> second = cache.getOrVerify("token", verifier);
+
+        assertThat(first).isPresent();
+        assertThat(second).isEqualTo(first);
+        assertThat(verifications).hasValue(1);
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should never serve a cached token past its exp")
+    void shouldNotExtendTokenLifetime() {
+        VerifiedTokenCache cache = newCache(true);
+        cache.getOrVerify("token", verifierExpiringIn(Duration.ofMinutes(5)));
+
+        clock.advance(Duration.ofMinutes(5));
+
+        // The verifier would reject the token now; the cache must not answer for it.
+        Optional<TokenClaims> afterExpiry = cache.getOrVerify("token", token -> Optional.empty());
+
+        assertThat(afterExpiry).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should not cache failed verifications")
+    void shouldNotCacheFailures() {
+        VerifiedTokenCache cache = newCache(true);
+        Function<String, Optional<TokenClaims>> rejecting = token -> {
+            verifications.incrementAndGet();
+            return Optional.empty();
+        };
+
+        cache.getOrVerify("bad-token", rejecting);
+        cache.getOrVerify("bad-token", rejecting);
+
+        assertThat(verifications).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should delegate every call to the verifier when disabled")
+    void shouldBypassCacheWhenDisabled() {
+        VerifiedTokenCache cache = newCache(false);
+        Function<String, Optional<TokenClaims>> verifier = verifierExpiringIn(Duration.ofMinutes(10));
+
+        cache.getOrVerify("token", verifier);
+        cache.getOrVerify("token", verifier);
+
+        assertThat(cache.isEnabled()).isFalse();
+        assertThat(verifications).hasValue(2);
+    }
+
+    private VerifiedTokenCache newCache(boolean enabled) {
+        JwtProperties.Cache settings = new JwtProperties.Cache();
+        settings.setEnabled(enabled);
+        settings.setMaxSize(100);
+        return new VerifiedTokenCache(settings, new SimpleMeterRegistry(), clock);
+    }
+
+    private Function<String, Optional<TokenClaims>> verifierExpiringIn(Duration ttl) {
+        return token -> {
+            verifications.incrementAndGet();
+            Instant now = clock.instant();
+            return Optional.of(new TokenClaims("user@example.com", now, now.plus(ttl)));
+        };
+    }
+}
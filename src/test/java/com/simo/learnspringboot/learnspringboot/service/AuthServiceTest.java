@@ -1,24 +1,28 @@
 package com.simo.learnspringboot.learnspringboot.service;
 
+import com.simo.learnspringboot.learnspringboot.config.ReadReplicaProperties;
 import com.simo.learnspringboot.learnspringboot.dto.*;
 import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.EmailAlreadyInUseException;
 import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.InvalidAuthCredentialsException;
 import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.InvalidTokenException;
+import com.simo.learnspringboot.learnspringboot.model.TokenType;
 import com.simo.learnspringboot.learnspringboot.model.User;
 import com.simo.learnspringboot.learnspringboot.repository.UserRepository;
 import com.simo.learnspringboot.learnspringboot.security.JwtUtil;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
 
-import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -41,7 +45,19 @@ public class AuthServiceTest {
     private JwtUtil jwtUtil;
 
     @Mock
-    private EmailService emailService;
+    private EmailOutbox emailOutbox;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private OneTimeTokenService oneTimeTokenService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private ReadReplicaProperties readReplicaProperties = new ReadReplicaProperties();
 
     @InjectMocks
     private AuthService authService;
@@ -77,6 +93,7 @@ public class AuthServiceTest {
         RegisterRequestDto request = new RegisterRequestDto("NewUser", "new@example.com", "Password@123");
         when(userRepository.findByEmail(request.email())).thenReturn(Optional.empty());
         when(passwordEncoder.encode(anyString())).thenReturn("hashedPassword");
+        when(oneTimeTokenService.issue(any(User.class), eq(TokenType.EMAIL_VERIFICATION))).thenReturn("verificationToken");
 
         // Use an ArgumentCaptor to inspect the user object that gets saved
         ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
@@ -90,10 +107,26 @@ public class AuthServiceTest {
         User savedUser = userCaptor.getValue();
 
         assertThat(savedUser.isVerified()).isFalse(); // Must be unverified
-        assertThat(savedUser.getEmailVerificationToken()).isNotNull().isNotEmpty(); // Must have a token
+        verify(oneTimeTokenService).issue(savedUser, TokenType.EMAIL_VERIFICATION); // Must have a token
 
         // Verify an email was sent with the correct details
-        verify(emailService).sendVerificationEmail(eq(savedUser.getEmail()), eq(savedUser.getEmailVerificationToken()));
+        verify(emailOutbox).enqueueVerificationEmail(eq(savedUser.getEmail()), eq("verificationToken"));
+    }
+
+    @Test
+    void register_ShouldHashThePasswordBeforeOpeningTheTransaction() {
+        RegisterRequestDto request = new RegisterRequestDto("NewUser", "new@example.com", "Password@123");
+        when(userRepository.findByEmail(request.email())).thenReturn(Optional.empty());
+        when(passwordEncoder.encode("Password@123")).thenReturn("hashedPassword");
+
+        authService.register(request);
+
+        InOrder inOrder = inOrder(passwordEncoder, transactionManager, userRepository);
+        inOrder.verify(passwordEncoder).encode("Password@123");
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(userRepository).findByEmail(request.email());
+        inOrder.verify(userRepository).save(any(User.class));
+        inOrder.verify(transactionManager).commit(any());
     }
 
     @Test
@@ -150,6 +183,7 @@ public class AuthServiceTest {
         User user = new User();
         user.setEmail("alice@example.com");
         user.setRole("ROLE_USER");
+        user.setVerified(true);
 
         // Mock authentication manager (does nothing in unit test)
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
@@ -158,19 +192,86 @@ public class AuthServiceTest {
         when(userRepository.findByEmail("alice@example.com"))
                 .thenReturn(Optional.of(user));
 
-        when(jwtUtil.generateToken("alice@example.com"))
+        when(jwtUtil.generateToken("alice@example.com", "ROLE_USER", true))
                 .thenReturn("mockedToken");
 
+        when(refreshTokenService.issue(user))
+                .thenReturn("mockedRefreshToken");
+
         AuthResponseDto response = authService.login(request);
 
         assertThat(response).isNotNull();
         assertThat(response.email()).isEqualTo("alice@example.com");
         assertThat(response.role()).isEqualTo("ROLE_USER");
         assertThat(response.token()).isEqualTo("mockedToken");
+        assertThat(response.refreshToken()).isEqualTo("mockedRefreshToken");
 
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
     }
 
+    @Test
+    void login_UnverifiedOnTheReplica_ShouldRereadThePrimary() {
+        Authentication mockAuth = mock(Authentication.class);
+        LoginRequestDto request = new LoginRequestDto("alice@example.com", "password123");
+
+        // Verified on another node: this node's replica still has the old row.
+        User stale = new User();
+        stale.setEmail("alice@example.com");
+        stale.setRole("ROLE_USER");
+        User current = new User();
+        current.setEmail("alice@example.com");
+        current.setRole("ROLE_USER");
+        current.setVerified(true);
+        readReplicaProperties.getInstances().add(new ReadReplicaProperties.Instance());
+
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(mockAuth);
+        when(userRepository.findByEmail("alice@example.com"))
+                .thenReturn(Optional.of(stale))
+                .thenReturn(Optional.of(current));
+        when(jwtUtil.generateToken("alice@example.com", "ROLE_USER", true))
+                .thenReturn("mockedToken");
+        when(refreshTokenService.issue(current))
+                .thenReturn("mockedRefreshToken");
+
+        AuthResponseDto response = authService.login(request);
+
+        assertThat(response.token()).isEqualTo("mockedToken");
+        verify(userRepository, times(2)).findByEmail("alice@example.com");
+    }
+
+    @Test
+    void refresh_ValidToken_ShouldReturnNewAccessAndRefreshTokens() {
+        User user = new User();
+        user.setEmail("alice@example.com");
+        user.setRole("ROLE_USER");
+        user.setVerified(true);
+
+        when(refreshTokenService.rotate("oldRefreshToken"))
+                .thenReturn(new RefreshTokenService.Rotation(user, "newRefreshToken"));
+        when(jwtUtil.generateToken("alice@example.com", "ROLE_USER", true))
+                .thenReturn("newAccessToken");
+
+        AuthResponseDto response = authService.refresh(new RefreshTokenRequestDto("oldRefreshToken"));
+
+        assertThat(response.token()).isEqualTo("newAccessToken");
+        assertThat(response.refreshToken()).isEqualTo("newRefreshToken");
+        assertThat(response.message()).isEqualTo("Token refreshed successfully!");
+        verifyNoInteractions(userRepository, authenticationManager);
+    }
+
+    @Test
+    void refresh_InvalidToken_ShouldPropagateInvalidTokenException() {
+        when(refreshTokenService.rotate("reusedToken"))
+                .thenThrow(new InvalidTokenException("Invalid or expired refresh token."));
+
+        InvalidTokenException thrown = assertThrows(InvalidTokenException.class,
+                () -> authService.refresh(new RefreshTokenRequestDto("reusedToken")));
+
+        assertThat(thrown.getMessage()).isEqualTo("Invalid or expired refresh token.");
+        verify(jwtUtil, never()).generateToken(anyString(), anyString(), anyBoolean());
+    }
+
     @Test
     void shouldThrowExceptionIfLoginCredentialsAreInvalid() {
         LoginRequestDto request = new LoginRequestDto("alice@example.com", "password123");
@@ -197,11 +298,15 @@ public class AuthServiceTest {
 
         when(userRepository.findByEmail(email))
                 .thenReturn(Optional.of(user));
+        when(oneTimeTokenService.issue(user, TokenType.PASSWORD_RESET)).thenReturn("resetToken");
 
         String message = authService.forgetPassword(request);
 
-        verify(userRepository).save(any(User.class));
-        verify(emailService).sendResetPasswordEmail(eq(email), anyString());
+        // The previous link stops working once a new one is sent.
+        var inOrder = inOrder(oneTimeTokenService);
+        inOrder.verify(oneTimeTokenService).revokeAll(user, TokenType.PASSWORD_RESET);
+        inOrder.verify(oneTimeTokenService).issue(user, TokenType.PASSWORD_RESET);
+        verify(emailOutbox).enqueueResetPasswordEmail(email, "resetToken");
         assertThat(message).isEqualTo("If an account with that email exists, a password reset link has been sent.");
     }
 
@@ -214,8 +319,8 @@ public class AuthServiceTest {
 
         String message = authService.forgetPassword(request);
 
-        verify(userRepository, never()).save(any(User.class));
-        verify(emailService, never()).sendResetPasswordEmail(anyString(), anyString());
+        verifyNoInteractions(oneTimeTokenService);
+        verify(emailOutbox, never()).enqueueResetPasswordEmail(anyString(), anyString());
         assertThat(message).isEqualTo("If an account with that email exists, a password reset link has been sent.");
     }
 
@@ -223,27 +328,43 @@ public class AuthServiceTest {
     void resetPassword_ValidToken_ShouldUpdatePassword() {
         var request = new ResetPasswordRequestDto("mockToken", "NewPassword@123");
         User user = new User();
-        user.setTokenExpiryDate(LocalDateTime.now().plusMinutes(5));
 
         when(passwordEncoder.encode("NewPassword@123"))
                 .thenReturn("encodedNewPassword");
 
-        when(userRepository.findByPasswordResetToken("mockToken"))
+        when(oneTimeTokenService.redeem("mockToken", TokenType.PASSWORD_RESET))
                 .thenReturn(Optional.of(user));
 
         String message = authService.resetPassword(request);
 
         assertThat(message).isEqualTo("Password has been successfully reset.");
         assertThat(user.getPassword()).isEqualTo("encodedNewPassword");
-        assertThat(user.getPasswordResetToken()).isNull();
         verify(userRepository).save(user);
+        verify(refreshTokenService).revokeAll(user);
+    }
+
+    @Test
+    void resetPassword_ShouldHashThePasswordBeforeRedeemingTheToken() {
+        var request = new ResetPasswordRequestDto("mockToken", "NewPassword@123");
+        User user = new User();
+        when(passwordEncoder.encode("NewPassword@123")).thenReturn("encodedNewPassword");
+        when(oneTimeTokenService.redeem("mockToken", TokenType.PASSWORD_RESET)).thenReturn(Optional.of(user));
+
+        authService.resetPassword(request);
+
+        InOrder inOrder = inOrder(passwordEncoder, transactionManager, oneTimeTokenService, refreshTokenService);
+        inOrder.verify(passwordEncoder).encode("NewPassword@123");
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(oneTimeTokenService).redeem("mockToken", TokenType.PASSWORD_RESET);
+        inOrder.verify(refreshTokenService).revokeAll(user);
+        inOrder.verify(transactionManager).commit(any());
     }
 
     @Test
     void resetPassword_InvalidToken_ShouldThrowException() {
         var request = new ResetPasswordRequestDto("invalidToken", "NewPassword@123");
 
-        when(userRepository.findByPasswordResetToken("invalidToken"))
+        when(oneTimeTokenService.redeem("invalidToken", TokenType.PASSWORD_RESET))
                 .thenReturn(Optional.empty());
 
         InvalidTokenException thrown = assertThrows(InvalidTokenException.class, () -> authService.resetPassword(request) );
@@ -258,9 +379,8 @@ public class AuthServiceTest {
         String token = "validToken";
         User unverifiedUser = new User();
         unverifiedUser.setVerified(false);
-        unverifiedUser.setEmailVerificationToken(token);
 
-        when(userRepository.findByEmailVerificationToken(token))
+        when(oneTimeTokenService.redeem(token, TokenType.EMAIL_VERIFICATION))
                 .thenReturn(Optional.of(unverifiedUser));
 
         ArgumentCaptor<User> argumentCaptor = ArgumentCaptor.forClass(User.class);
@@ -272,18 +392,14 @@ public class AuthServiceTest {
 
         assertThat(responseMessage).isEqualTo("Email verified successfully!");
         assertThat(savedUser.isVerified()).isTrue();
-        assertThat(savedUser.getEmailVerificationToken()).isNull();
     }
 
 
     @Test
     void verifyEmail_InvalidToken_Failure() {
         String token = "invalidToken";
-        User unverifiedUser = new User();
-        unverifiedUser.setVerified(false);
-        unverifiedUser.setEmailVerificationToken(token);
 
-        when(userRepository.findByEmailVerificationToken(token))
+        when(oneTimeTokenService.redeem(token, TokenType.EMAIL_VERIFICATION))
                 .thenReturn(Optional.empty());
 
         InvalidTokenException thrown = assertThrows(InvalidTokenException.class, () -> authService.verifyEmail(token));
@@ -0,0 +1,47 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.eclipse.angus.mail.util.MailConnectException;
+import org.eclipse.angus.mail.util.SocketConnectException;
+import org.junit.jupiter.api.Test;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeliveryFailuresTest {
+
+    @Test
+    void shouldTreatServerRefusalsAsPermanent() throws Exception {
+        InternetAddress recipient = new InternetAddress("user@example.com");
+
+        assertThat(DeliveryFailures.isPermanent(
+                new SMTPAddressFailedException(recipient, "RCPT TO", 550, "550 5.1.1 no such user"))).isTrue();
+        assertThat(DeliveryFailures.isPermanent(
+                new SMTPSendFailedException("DATA", 554, "554 5.7.1 rejected as spam", null, null, null, null))).isTrue();
+        assertThat(DeliveryFailures.isPermanent(new AddressException("Illegal address", "not an address"))).isTrue();
+        assertThat(DeliveryFailures.isPermanent(new SendFailedException("Invalid Addresses", null,
+                null, null, new InternetAddress[]{recipient}))).isTrue();
+    }
+
+    @Test
+    void shouldTreatTemporaryAndConnectionFailuresAsTransient() throws Exception {
+        InternetAddress recipient = new InternetAddress("user@example.com");
+
+        assertThat(DeliveryFailures.isPermanent(
+                new SMTPAddressFailedException(recipient, "RCPT TO", 452, "452 mailbox full"))).isFalse();
+        assertThat(DeliveryFailures.isPermanent(new MailConnectException(new SocketConnectException(
+                "Connection refused", new ConnectException(), "smtp.example.com", 465, 1000)))).isFalse();
+        assertThat(DeliveryFailures.isPermanent(new MessagingException("Read timed out", new SocketTimeoutException())))
+                .isFalse();
+        assertThat(DeliveryFailures.isPermanent(new AuthenticationFailedException("535 bad credentials"))).isFalse();
+        assertThat(DeliveryFailures.isPermanent(new MessagingException("Something else"))).isFalse();
+    }
+}
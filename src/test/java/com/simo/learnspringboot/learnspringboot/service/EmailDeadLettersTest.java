@@ -0,0 +1,162 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import com.simo.learnspringboot.learnspringboot.config.OneTimeTokenProperties;
+import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.DeadLetterEmailNotFoundException;
+import com.simo.learnspringboot.learnspringboot.model.DeadLetterEmail;
+import com.simo.learnspringboot.learnspringboot.model.EmailType;
+import com.simo.learnspringboot.learnspringboot.model.OutboxEmail;
+import com.simo.learnspringboot.learnspringboot.model.TokenType;
+import com.simo.learnspringboot.learnspringboot.model.User;
+import com.simo.learnspringboot.learnspringboot.repository.DeadLetterEmailRepository;
+import com.simo.learnspringboot.learnspringboot.repository.OneTimeTokenRepository;
+import com.simo.learnspringboot.learnspringboot.repository.OutboxEmailRepository;
+import com.simo.learnspringboot.learnspringboot.security.TokenDigests;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import({EmailDeadLetters.class, OneTimeTokenService.class, EmailDeadLettersTest.Config.class})
+class EmailDeadLettersTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        OneTimeTokenProperties oneTimeTokenProperties() {
+            return new OneTimeTokenProperties();
+        }
+    }
+
+    @Autowired
+    private EmailDeadLetters emailDeadLetters;
+
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @Autowired
+    private DeadLetterEmailRepository deadLetterEmailRepository;
+
+    @Autowired
+    private OneTimeTokenRepository oneTimeTokenRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void shouldMoveEmailFromOutboxToDeadLetters() {
+        OutboxEmail email = saveOutboxEmail("dead@example.com", 4);
+        Instant failedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+        emailDeadLetters.deadLetter(email, "550 mailbox unavailable", true, failedAt);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(outboxEmailRepository.findById(email.getId())).isEmpty();
+        DeadLetterEmail deadLetter = deadLetterEmailRepository.findById(email.getId()).orElseThrow();
+        assertThat(deadLetter.getRecipient()).isEqualTo("dead@example.com");
+        assertThat(deadLetter.getAttempts()).isEqualTo(5);
+        assertThat(deadLetter.isPermanent()).isTrue();
+        assertThat(deadLetter.getLastError()).isEqualTo("550 mailbox unavailable");
+        assertThat(emailDeadLetters.list(0, 10)).extracting(DeadLetterEmail::getId).contains(email.getId());
+    }
+
+    @Test
+    void shouldReplayDeadLetterIntoOutboxWithFreshAttemptsAndAFreshToken() {
+        User user = saveUser("replay@example.com", false);
+        OutboxEmail email = saveOutboxEmail("replay@example.com", 7);
+        emailDeadLetters.deadLetter(email, "421 try again later", false, Instant.now());
+        entityManager.flush();
+
+        String message = emailDeadLetters.replay(email.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(message).isEqualTo("Email to replay@example.com has been queued again.");
+        assertThat(deadLetterEmailRepository.findById(email.getId())).isEmpty();
+        OutboxEmail queued = queuedFor("replay@example.com");
+        assertThat(queued.getAttempts()).isZero();
+        assertThat(queued.getToken()).isNotEqualTo(email.getToken());
+        assertThat(oneTimeTokenRepository.findByTokenHashAndType(
+                TokenDigests.sha256(queued.getToken()), TokenType.EMAIL_VERIFICATION))
+                .hasValueSatisfying(token -> assertThat(token.getUser().getId()).isEqualTo(user.getId()));
+    }
+
+    @Test
+    void shouldDiscardReplayOfVerificationEmailForVerifiedUser() {
+        saveUser("verified@example.com", true);
+        OutboxEmail email = saveOutboxEmail("verified@example.com", 7);
+        emailDeadLetters.deadLetter(email, "421 try again later", false, Instant.now());
+        entityManager.flush();
+
+        String message = emailDeadLetters.replay(email.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(message).isEqualTo("Email to verified@example.com is no longer needed and has been discarded.");
+        assertThat(deadLetterEmailRepository.findById(email.getId())).isEmpty();
+        assertThat(outboxEmailRepository.findAll()).extracting(OutboxEmail::getRecipient)
+                .doesNotContain("verified@example.com");
+        assertThat(oneTimeTokenRepository.count()).isZero();
+    }
+
+    @Test
+    void shouldDiscardReplayForDeletedUser() {
+        OutboxEmail email = saveOutboxEmail("gone@example.com", 7);
+        emailDeadLetters.deadLetter(email, "550 mailbox unavailable", true, Instant.now());
+        entityManager.flush();
+
+        assertThat(emailDeadLetters.replay(email.getId()))
+                .isEqualTo("Email to gone@example.com is no longer needed and has been discarded.");
+        assertThat(deadLetterEmailRepository.findById(email.getId())).isEmpty();
+    }
+
+    @Test
+    void shouldRejectReplayOfUnknownEmail() {
+        UUID id = UUID.randomUUID();
+
+        assertThatThrownBy(() -> emailDeadLetters.replay(id))
+                .isInstanceOf(DeadLetterEmailNotFoundException.class)
+                .hasMessage("Dead-lettered email not found: " + id);
+    }
+
+    private OutboxEmail queuedFor(String recipient) {
+        return outboxEmailRepository.findAllByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+                        Instant.now(), PageRequest.of(0, 100)).stream()
+                .filter(queued -> queued.getRecipient().equals(recipient))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private User saveUser(String email, boolean verified) {
+        User user = new User();
+        user.setName("Dead Letter");
+        user.setEmail(email);
+        user.setPassword("hash");
+        user.setRole("ROLE_USER");
+        user.setVerified(verified);
+        return entityManager.persistAndFlush(user);
+    }
+
+    private OutboxEmail saveOutboxEmail(String recipient, int attempts) {
+        OutboxEmail email = new OutboxEmail();
+        email.setType(EmailType.VERIFICATION);
+        email.setRecipient(recipient);
+        email.setToken("token-" + recipient);
+        email.setCreatedAt(Instant.now());
+        email.setNextAttemptAt(Instant.now());
+        email.setAttempts(attempts);
+        return entityManager.persistAndFlush(email);
+    }
+}
@@ -0,0 +1,265 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import com.simo.learnspringboot.learnspringboot.config.EmailProperties;
+import com.simo.learnspringboot.learnspringboot.model.EmailType;
+import com.simo.learnspringboot.learnspringboot.model.OutboxEmail;
+import com.simo.learnspringboot.learnspringboot.repository.OutboxEmailRepository;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.net.SocketException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxDispatcherTest {
+
+    @Mock
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private SmtpTransportPool smtpTransportPool;
+
+    @Mock
+    private EmailDeadLetters emailDeadLetters;
+
+    @Captor
+    private ArgumentCaptor<List<MimeMessage>> chunks;
+
+    private final Clock clock = Clock.fixed(Instant.parse("2025-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        EmailProperties properties = new EmailProperties();
+        properties.getOutbox().setBatchSize(2);
+        properties.getOutbox().setConcurrency(2);
+        properties.getOutbox().setMaxAttempts(3);
+        dispatcher = dispatcher(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.destroy();
+    }
+
+    @Test
+    void shouldSendBatchAndDeleteSentEmails() {
+        OutboxEmail verification = outboxEmail(EmailType.VERIFICATION, "a@example.com");
+        OutboxEmail reset = outboxEmail(EmailType.PASSWORD_RESET, "b@example.com");
+        when(outboxEmailRepository.findAllByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(any(Instant.class), any(Pageable.class)))
+                .thenReturn(List.of(verification, reset));
+        stubBuildEmail();
+        when(smtpTransportPool.send(anyList())).thenReturn(Map.of());
+
+        int sent = dispatcher.dispatchBatch();
+
+        assertThat(sent).isEqualTo(2);
+        verify(emailService).buildEmail(EmailType.VERIFICATION, "a@example.com", "token-a@example.com");
+        verify(emailService).buildEmail(EmailType.PASSWORD_RESET, "b@example.com", "token-b@example.com");
+        verify(outboxEmailRepository).deleteAllByIdInBatch(
+                argThat(ids -> ((List<UUID>) ids).containsAll(List.of(verification.getId(), reset.getId()))));
+    }
+
+    @Test
+    void shouldSendEachChunkOverOnePooledSession() {
+        EmailProperties properties = new EmailProperties();
+        properties.getOutbox().setBatchSize(5);
+        properties.getOutbox().setConcurrency(2);
+        dispatcher.destroy();
+        dispatcher = dispatcher(properties);
+        when(outboxEmailRepository.findAllByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(any(Instant.class), any(Pageable.class)))
+                .thenReturn(IntStream.range(0, 5)
+                        .mapToObj(i -> outboxEmail(EmailType.VERIFICATION, i + "@example.com"))
+                        .toList());
+        stubBuildEmail();
+        when(smtpTransportPool.send(anyList())).thenReturn(Map.of());
+
+        int sent = dispatcher.dispatchBatch();
+
+        assertThat(sent).isEqualTo(5);
+        verify(smtpTransportPool, times(2)).send(chunks.capture());
+        assertThat(chunks.getAllValues()).extracting(List::size).containsExactlyInAnyOrder(3, 2);
+    }
+
+    @Test
+    void shouldDeleteTheSentEmailsOfTheOtherChunksWhenOneChunkFails() {
+        EmailProperties properties = new EmailProperties();
+        properties.getOutbox().setBatchSize(5);
+        properties.getOutbox().setConcurrency(2);
+        dispatcher.destroy();
+        dispatcher = dispatcher(properties);
+        List<OutboxEmail> batch = IntStream.range(0, 5)
+                .mapToObj(i -> outboxEmail(EmailType.VERIFICATION, i + "@example.com"))
+                .toList();
+        when(outboxEmailRepository.findAllByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(any(Instant.class), any(Pageable.class)))
+                .thenReturn(batch);
+        stubBuildEmail();
+        // The chunk of three blows up, the chunk of two goes out.
+        when(smtpTransportPool.send(anyList())).thenAnswer(invocation -> {
+            if (invocation.<List<MimeMessage>>getArgument(0).size() == 3) {
+                throw new IllegalStateException("Not connected");
+            }
+            return Map.of();
+        });
+
+        int sent = dispatcher.dispatchBatch();
+
+        assertThat(sent).isEqualTo(2);
+        verify(outboxEmailRepository).deleteAllByIdInBatch(List.of(batch.get(3).getId(), batch.get(4).getId()));
+    }
+
+    @Test
+    void shouldRetryTransientFailureAfterBackoff() {
+        OutboxEmail failing = outboxEmail(EmailType.VERIFICATION, "down@example.com");
+        OutboxEmail ok = outboxEmail(EmailType.VERIFICATION, "up@example.com");
+        when(outboxEmailRepository.findAllByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(any(Instant.class), any(Pageable.class)))
+                .thenReturn(List.of(failing, ok));
+        MimeMessage refused = message();
+        when(emailService.buildEmail(EmailType.VERIFICATION, "down@example.com", "token-down@example.com"))
+                .thenReturn(refused);
+        when(emailService.buildEmail(EmailType.VERIFICATION, "up@example.com", "token-up@example.com"))
+                .thenReturn(message());
+        when(smtpTransportPool.send(anyList()))
+                .thenReturn(Map.of(refused, new MessagingException("Connection reset", new SocketException())));
+
+        int sent = dispatcher.dispatchBatch();
+
+        assertThat(sent).isEqualTo(1);
+        // First retry: between half and all of the 30s initial backoff.
+        verify(outboxEmailRepository).recordFailure(eq(failing.getId()), eq("Connection reset"), argThat(at ->
+                !at.isBefore(clock.instant().plusSeconds(15)) && !at.isAfter(clock.instant().plusSeconds(30))));
+        verify(outboxEmailRepository).deleteAllByIdInBatch(List.of(ok.getId()));
+        verifyNoInteractions(emailDeadLetters);
+    }
+
+    @Test
+    void shouldDeadLetterEmailRefusedByTheServer() throws Exception {
+        OutboxEmail refused = outboxEmail(EmailType.VERIFICATION, "gone@example.com");
+        when(outboxEmailRepository.findAllByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(any(Instant.class), any(Pageable.class)))
+                .thenReturn(List.of(refused));
+        stubBuildEmail();
+        when(smtpTransportPool.send(anyList())).thenAnswer(invocation -> Map.of(
+                invocation.<List<MimeMessage>>getArgument(0).get(0),
+                new SMTPAddressFailedException(new InternetAddress("gone@example.com"), "RCPT TO", 550,
+                        "550 5.1.1 mailbox unavailable")));
+
+        dispatcher.dispatchBatch();
+
+        verify(emailDeadLetters).deadLetter(refused, "550 5.1.1 mailbox unavailable", true, clock.instant());
+        verify(outboxEmailRepository, never()).recordFailure(any(), any(), any());
+    }
+
+    @Test
+    void shouldDeadLetterEmailThatRanOutOfAttempts() {
+        OutboxEmail exhausted = outboxEmail(EmailType.PASSWORD_RESET, "flaky@example.com");
+        exhausted.setAttempts(2);
+        when(outboxEmailRepository.findAllByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(any(Instant.class), any(Pageable.class)))
+                .thenReturn(List.of(exhausted));
+        stubBuildEmail();
+        when(smtpTransportPool.send(anyList())).thenAnswer(invocation -> Map.of(
+                invocation.<List<MimeMessage>>getArgument(0).get(0), new MessagingException("421 try again later")));
+
+        dispatcher.dispatchBatch();
+
+        verify(emailDeadLetters).deadLetter(exhausted, "421 try again later", false, clock.instant());
+    }
+
+    @Test
+    void shouldGrowBackoffExponentiallyUpToTheCap() {
+        EmailProperties properties = new EmailProperties();
+        properties.getOutbox().setInitialBackoff(Duration.ofSeconds(10));
+        properties.getOutbox().setMaxBackoff(Duration.ofSeconds(60));
+        dispatcher.destroy();
+        dispatcher = dispatcher(properties);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(dispatcher.backoffMillis(1)).isBetween(5_000L, 10_000L);
+            assertThat(dispatcher.backoffMillis(3)).isBetween(20_000L, 40_000L);
+            assertThat(dispatcher.backoffMillis(30)).isBetween(30_000L, 60_000L);
+        }
+    }
+
+    @Test
+    void shouldDeadLetterEmailsThatCannotBeBuilt() {
+        OutboxEmail broken = outboxEmail(EmailType.VERIFICATION, "broken@example.com");
+        when(outboxEmailRepository.findAllByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(any(Instant.class), any(Pageable.class)))
+                .thenReturn(List.of(broken));
+        when(emailService.buildEmail(any(), anyString(), anyString()))
+                .thenThrow(new RuntimeException("Failed to build email"));
+
+        int sent = dispatcher.dispatchBatch();
+
+        assertThat(sent).isZero();
+        verify(emailDeadLetters).deadLetter(broken, "Failed to build email", true, clock.instant());
+        verifyNoInteractions(smtpTransportPool);
+        verify(outboxEmailRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void shouldStopDrainingWhenABatchIsNotFull() {
+        when(outboxEmailRepository.findAllByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(any(Instant.class), any(Pageable.class)))
+                .thenReturn(List.of(outboxEmail(EmailType.VERIFICATION, "a@example.com"),
+                                outboxEmail(EmailType.VERIFICATION, "b@example.com")))
+                .thenReturn(List.of(outboxEmail(EmailType.VERIFICATION, "c@example.com")));
+        stubBuildEmail();
+        when(smtpTransportPool.send(anyList())).thenReturn(Map.of());
+
+        dispatcher.dispatchPending();
+
+        verify(outboxEmailRepository, times(2)).findAllByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(any(Instant.class), any(Pageable.class));
+        verify(emailService, times(3)).buildEmail(any(), anyString(), anyString());
+    }
+
+    private EmailOutboxDispatcher dispatcher(EmailProperties properties) {
+        return new EmailOutboxDispatcher(outboxEmailRepository, emailService, smtpTransportPool, emailDeadLetters,
+                properties, clock);
+    }
+
+    private void stubBuildEmail() {
+        when(emailService.buildEmail(any(), anyString(), anyString())).thenAnswer(invocation -> message());
+    }
+
+    private static MimeMessage message() {
+        return new MimeMessage((Session) null);
+    }
+
+    private OutboxEmail outboxEmail(EmailType type, String recipient) {
+        OutboxEmail email = new OutboxEmail();
+        email.setId(UUID.randomUUID());
+        email.setType(type);
+        email.setRecipient(recipient);
+        email.setToken("token-" + recipient);
+        email.setCreatedAt(Instant.now());
+        return email;
+    }
+}
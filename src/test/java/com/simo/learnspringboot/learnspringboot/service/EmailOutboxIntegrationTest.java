@@ -0,0 +1,93 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.simo.learnspringboot.learnspringboot.dto.ForgetPasswordRequestDto;
+import com.simo.learnspringboot.learnspringboot.dto.RegisterRequestDto;
+import com.simo.learnspringboot.learnspringboot.dto.ResetPasswordRequestDto;
+import com.simo.learnspringboot.learnspringboot.repository.OutboxEmailRepository;
+import com.simo.learnspringboot.learnspringboot.repository.UserRepository;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Registration and password reset against an in-process SMTP server: the request only writes the outbox,
+ * the dispatcher delivers the email afterwards and clears the outbox.
+ */
+@SpringBootTest(properties = {
+        // A database of its own: the dispatchers of other cached contexts would otherwise race for its outbox.
+        "spring.datasource.url=jdbc:h2:mem:outbox-it",
+        "spring.mail.host=localhost",
+        "spring.mail.port=3025",
+        "spring.mail.username=",
+        "spring.mail.password=",
+        "spring.mail.properties.mail.smtp.auth=false",
+        "spring.mail.properties.mail.smtp.ssl.enable=false",
+        "app.mail.outbox.poll-interval=PT0.1S"
+})
+class EmailOutboxIntegrationTest {
+
+    private static final Pattern TOKEN_LINK = Pattern.compile("token=([A-Za-z0-9_-]+)");
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @Test
+    void shouldDeliverVerificationEmailAfterRegistration() throws Exception {
+        authService.register(new RegisterRequestDto("Outbox", "outbox-register@example.com", "Password@123"));
+
+        assertThat(greenMail.waitForIncomingEmail(5_000, 1)).isTrue();
+        MimeMessage delivered = greenMail.getReceivedMessages()[0];
+
+        assertThat(delivered.getAllRecipients()[0].toString()).isEqualTo("outbox-register@example.com");
+        // The link in the email is the only place the raw token exists; it has to verify the account.
+        authService.verifyEmail(tokenIn(delivered));
+        assertThat(userRepository.findByEmail("outbox-register@example.com").orElseThrow().isVerified()).isTrue();
+        awaitEmptyOutbox();
+    }
+
+    @Test
+    void shouldDeliverResetPasswordEmail() throws Exception {
+        authService.register(new RegisterRequestDto("Outbox", "outbox-reset@example.com", "Password@123"));
+        assertThat(greenMail.waitForIncomingEmail(5_000, 1)).isTrue();
+
+        authService.forgetPassword(new ForgetPasswordRequestDto("outbox-reset@example.com"));
+
+        assertThat(greenMail.waitForIncomingEmail(5_000, 2)).isTrue();
+        String oldHash = userRepository.findByEmail("outbox-reset@example.com").orElseThrow().getPassword();
+        authService.resetPassword(new ResetPasswordRequestDto(tokenIn(greenMail.getReceivedMessages()[1]), "NewPassword@1"));
+        assertThat(userRepository.findByEmail("outbox-reset@example.com").orElseThrow().getPassword()).isNotEqualTo(oldHash);
+        awaitEmptyOutbox();
+    }
+
+    private static String tokenIn(MimeMessage email) throws Exception {
+        Matcher link = TOKEN_LINK.matcher((String) email.getContent());
+        assertThat(link.find()).isTrue();
+        return link.group(1);
+    }
+
+    private void awaitEmptyOutbox() throws InterruptedException {
+        // The row is deleted right after the send returns; give the dispatcher a moment to get there.
+        for (int i = 0; i < 50 && outboxEmailRepository.count() > 0; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(outboxEmailRepository.count()).isZero();
+    }
+}
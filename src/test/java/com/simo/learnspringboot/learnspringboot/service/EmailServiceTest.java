@@ -1,18 +1,21 @@
 package com.simo.learnspringboot.learnspringboot.service;
 
+import com.simo.learnspringboot.learnspringboot.config.EmailProperties;
+import com.simo.learnspringboot.learnspringboot.model.EmailType;
 import jakarta.mail.BodyPart;
 import jakarta.mail.Multipart;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.mail.MailSendException;
+import org.springframework.context.support.ResourceBundleMessageSource;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -23,39 +26,73 @@ class EmailServiceTest {
     @Mock
     JavaMailSender mailSender;
 
-    @InjectMocks
     EmailService emailService;
 
+    @BeforeEach
+    void setUp() {
+        EmailProperties properties = new EmailProperties();
+        properties.setBaseUrl("https://auth.example.com/");
+        emailService = new EmailService(mailSender, templateRenderer(properties), properties);
+    }
+
+    // The same engine setup Boot auto-configures: cached templates from classpath:templates, texts from messages.
+    static EmailTemplateRenderer templateRenderer(EmailProperties properties) {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setCharacterEncoding("UTF-8");
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasename("messages");
+        messageSource.setDefaultEncoding("UTF-8");
+        messageSource.setFallbackToSystemLocale(false);
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        engine.setTemplateEngineMessageSource(messageSource);
+        return new EmailTemplateRenderer(engine, messageSource, properties);
+    }
+
     @Test
-    void testSendResetPasswordEmail() throws Exception {
+    void testBuildResetPasswordEmail() throws Exception {
         // Arrange
-        MimeMessage mimeMessage = new JavaMailSenderImpl().createMimeMessage();
-
-        when(mailSender.createMimeMessage()).thenReturn(mimeMessage);
+        when(mailSender.createMimeMessage()).thenReturn(new JavaMailSenderImpl().createMimeMessage());
 
         String recipient = "test@example.com";
         String token = "dummy-token-123";
 
         // Act
-        emailService.sendResetPasswordEmail(recipient, token);
-
-        // Capture
-        ArgumentCaptor<MimeMessage> messageCaptor = ArgumentCaptor.forClass(MimeMessage.class);
-        verify(mailSender, times(1)).send(messageCaptor.capture());
-
-        MimeMessage sentMessage = messageCaptor.getValue();
+        MimeMessage message = emailService.buildEmail(EmailType.PASSWORD_RESET, recipient, token);
 
         // Assert recipient & subject
-        assertThat(sentMessage.getAllRecipients()[0].toString()).isEqualTo(recipient);
-        assertThat(sentMessage.getSubject()).isEqualTo("🔐 Password Reset Request");
+        assertThat(message.getAllRecipients()[0].toString()).isEqualTo(recipient);
+        assertThat(message.getSubject()).isEqualTo("🔐 Password Reset Request");
 
         // Extract email body safely
-        String htmlContent = extractContent(sentMessage.getContent());
+        String htmlContent = extractContent(message.getContent());
 
         // Assert HTML content
         assertThat(htmlContent).contains("dummy-token-123");
         assertThat(htmlContent).contains("Reset Password");
-        assertThat(htmlContent).contains("http://localhost:8080/api/auth/reset-password?token=dummy-token-123");
+        assertThat(htmlContent).contains("https://auth.example.com/api/auth/reset-password?token=dummy-token-123");
+
+        // Sending is the outbox dispatcher's job
+        verify(mailSender, never()).send(any(MimeMessage.class));
+    }
+
+    @Test
+    void shouldBuildVerificationEmailAsSingleHtmlPart() throws Exception {
+        when(mailSender.createMimeMessage()).thenReturn(new JavaMailSenderImpl().createMimeMessage());
+
+        MimeMessage message = emailService.buildEmail(EmailType.VERIFICATION, "new@example.com", "verify-123");
+        message.saveChanges();
+
+        assertThat(message.getSubject()).isEqualTo("✅ Verify Your Email Address");
+        assertThat(message.getContentType()).startsWith("text/html").containsIgnoringCase("charset=UTF-8");
+        assertThat(message.getContent()).isInstanceOf(String.class);
+        assertThat((String) message.getContent())
+                .contains("Verify Email")
+                .contains("href=\"https://auth.example.com/api/auth/verify-email?token=verify-123\"")
+                .doesNotContain("#{");
+        verify(mailSender, never()).send(any(MimeMessage.class));
     }
 
     private String extractContent(Object content) throws Exception {
@@ -74,19 +111,15 @@ class EmailServiceTest {
     }
 
     @Test
-    void testSendPasswordResetEmail_Failure() {
-        doThrow(new MailSendException("Failed to connect"))
-                .when(mailSender).send(any(MimeMessage.class));
-
+    void testBuildPasswordResetEmail_Failure() {
         when(mailSender.createMimeMessage()).thenReturn(new JavaMailSenderImpl().createMimeMessage());
 
         // Act & Assert
         RuntimeException thrown = assertThrows(RuntimeException.class, () -> {
-            emailService.sendResetPasswordEmail("test@gmail.com", "token-123");
+            emailService.buildEmail(EmailType.PASSWORD_RESET, "<test@gmail.com", "token-123");
         });
 
-        assertThat(thrown.getMessage()).isEqualTo("Failed to send email");
-        assertThat(thrown.getCause()).isInstanceOf(MailSendException.class);
-        assertThat(thrown.getCause().getMessage()).isEqualTo("Failed to connect");
+        assertThat(thrown.getMessage()).isEqualTo("Failed to build email");
+        assertThat(thrown.getCause()).isInstanceOf(MessagingException.class);
     }
 }
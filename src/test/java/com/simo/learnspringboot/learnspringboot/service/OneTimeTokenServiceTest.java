@@ -0,0 +1,99 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import com.simo.learnspringboot.learnspringboot.config.OneTimeTokenProperties;
+import com.simo.learnspringboot.learnspringboot.model.OneTimeToken;
+import com.simo.learnspringboot.learnspringboot.model.TokenType;
+import com.simo.learnspringboot.learnspringboot.model.User;
+import com.simo.learnspringboot.learnspringboot.repository.OneTimeTokenRepository;
+import com.simo.learnspringboot.learnspringboot.security.TokenDigests;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class OneTimeTokenServiceTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Autowired
+    private OneTimeTokenRepository oneTimeTokenRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final OneTimeTokenProperties properties = new OneTimeTokenProperties();
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setName("Tess");
+        user.setEmail("one-time-token@example.com");
+        user.setPassword("hash");
+        user.setRole("ROLE_USER");
+        entityManager.persist(user);
+    }
+
+    @Test
+    void shouldRedeemATokenExactlyOnce() {
+        String token = serviceAt(NOW).issue(user, TokenType.PASSWORD_RESET);
+        entityManager.flush();
+
+        assertThat(serviceAt(NOW).redeem(token, TokenType.PASSWORD_RESET)).contains(user);
+        assertThat(serviceAt(NOW).redeem(token, TokenType.PASSWORD_RESET)).isEmpty();
+    }
+
+    @Test
+    void shouldStoreOnlyTheDigest() {
+        String token = serviceAt(NOW).issue(user, TokenType.EMAIL_VERIFICATION);
+        entityManager.flush();
+
+        OneTimeToken stored = oneTimeTokenRepository.findAll().get(0);
+        assertThat(stored.getTokenHash()).isEqualTo(TokenDigests.sha256(token)).isNotEqualTo(token);
+        assertThat(stored.getExpiresAt()).isEqualTo(NOW.plus(properties.getEmailVerificationTtl()));
+    }
+
+    @Test
+    void shouldNotRedeemATokenOfAnotherType() {
+        String token = serviceAt(NOW).issue(user, TokenType.EMAIL_VERIFICATION);
+        entityManager.flush();
+
+        assertThat(serviceAt(NOW).redeem(token, TokenType.PASSWORD_RESET)).isEmpty();
+        assertThat(serviceAt(NOW).redeem(token, TokenType.EMAIL_VERIFICATION)).contains(user);
+    }
+
+    @Test
+    void shouldNotRedeemAnExpiredToken() {
+        String token = serviceAt(NOW).issue(user, TokenType.PASSWORD_RESET);
+        entityManager.flush();
+
+        Instant expiry = NOW.plus(properties.getPasswordResetTtl());
+        assertThat(serviceAt(expiry).redeem(token, TokenType.PASSWORD_RESET)).isEmpty();
+        assertThat(serviceAt(expiry.minus(Duration.ofSeconds(1))).redeem(token, TokenType.PASSWORD_RESET)).contains(user);
+    }
+
+    @Test
+    void shouldRevokeOutstandingTokensOfOneType() {
+        String reset = serviceAt(NOW).issue(user, TokenType.PASSWORD_RESET);
+        String verification = serviceAt(NOW).issue(user, TokenType.EMAIL_VERIFICATION);
+        entityManager.flush();
+
+        serviceAt(NOW).revokeAll(user, TokenType.PASSWORD_RESET);
+
+        assertThat(serviceAt(NOW).redeem(reset, TokenType.PASSWORD_RESET)).isEmpty();
+        assertThat(serviceAt(NOW).redeem(verification, TokenType.EMAIL_VERIFICATION)).contains(user);
+    }
+
+    private OneTimeTokenService serviceAt(Instant now) {
+        return new OneTimeTokenService(oneTimeTokenRepository, properties, Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
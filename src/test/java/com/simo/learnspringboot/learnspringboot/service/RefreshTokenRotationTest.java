@@ -0,0 +1,105 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import com.simo.learnspringboot.learnspringboot.config.JwtProperties;
+import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.InvalidTokenException;
+import com.simo.learnspringboot.learnspringboot.model.RefreshToken;
+import com.simo.learnspringboot.learnspringboot.model.User;
+import com.simo.learnspringboot.learnspringboot.repository.RefreshTokenRepository;
+import com.simo.learnspringboot.learnspringboot.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.RepeatedTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rotates the same refresh token from two threads at once, each in its own transaction, as two tabs refreshing
+ * together would.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({RefreshTokenService.class, RefreshTokenRotationTest.Config.class})
+class RefreshTokenRotationTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        JwtProperties jwtProperties() {
+            return new JwtProperties();
+        }
+    }
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void cleanUp() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @RepeatedTest(5)
+    void concurrentRotationsShouldLetOneWinAndRevokeTheFamily() throws Exception {
+        User user = new User();
+        user.setName("Alice");
+        user.setEmail("alice@example.com");
+        user.setPassword("hash");
+        user.setRole("ROLE_USER");
+        user.setVerified(true);
+        String rawToken = refreshTokenService.issue(userRepository.save(user));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<RefreshTokenService.Rotation>> rotations = new ArrayList<>();
+        try {
+            for (int i = 0; i < 2; i++) {
+                rotations.add(executor.submit(() -> {
+                    start.await();
+                    return refreshTokenService.rotate(rawToken);
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            int rejected = 0;
+            for (Future<RefreshTokenService.Rotation> rotation : rotations) {
+                try {
+                    rotation.get();
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(InvalidTokenException.class);
+                    rejected++;
+                }
+            }
+
+            assertThat(succeeded).isOne();
+            assertThat(rejected).isOne();
+        } finally {
+            executor.shutdownNow();
+        }
+        // The loser revoked the family, including the token the winner was handed.
+        List<RefreshToken> family = refreshTokenRepository.findAll();
+        assertThat(family).hasSize(2).allSatisfy(token -> assertThat(token.getRevokedAt()).isNotNull());
+        assertThat(family.get(1).getFamilyId()).isEqualTo(family.get(0).getFamilyId());
+    }
+}
@@ -0,0 +1,130 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import com.simo.learnspringboot.learnspringboot.config.JwtProperties;
+import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.InvalidTokenException;
+import com.simo.learnspringboot.learnspringboot.model.RefreshToken;
+import com.simo.learnspringboot.learnspringboot.model.User;
+import com.simo.learnspringboot.learnspringboot.repository.RefreshTokenRepository;
+import com.simo.learnspringboot.learnspringboot.security.TokenDigests;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private RefreshTokenService refreshTokenService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, new JwtProperties());
+        user = new User();
+        user.setEmail("alice@example.com");
+    }
+
+    @Test
+    void issue_ShouldStoreOnlyTheHashOfANewToken() {
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+
+        String rawToken = refreshTokenService.issue(user);
+
+        verify(refreshTokenRepository).save(captor.capture());
+        RefreshToken stored = captor.getValue();
+        assertThat(rawToken).isNotBlank();
+        assertThat(stored.getTokenHash()).isEqualTo(TokenDigests.sha256(rawToken)).isNotEqualTo(rawToken);
+        assertThat(stored.getUser()).isEqualTo(user);
+        assertThat(stored.getFamilyId()).isNotNull();
+        assertThat(Duration.between(stored.getCreatedAt(), stored.getExpiresAt())).isEqualTo(Duration.ofDays(14));
+    }
+
+    @Test
+    void rotate_ValidToken_ShouldConsumeItAndIssueNextTokenInSameFamily() {
+        RefreshToken current = storedToken("oldToken", Instant.now().plusSeconds(600));
+        when(refreshTokenRepository.findByTokenHash(TokenDigests.sha256("oldToken"))).thenReturn(Optional.of(current));
+        when(refreshTokenRepository.markUsed(eq(current.getId()), any(Instant.class))).thenReturn(1);
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate("oldToken");
+
+        verify(refreshTokenRepository).markUsed(eq(current.getId()), any(Instant.class));
+        verify(refreshTokenRepository).save(captor.capture());
+        RefreshToken next = captor.getValue();
+        assertThat(next.getFamilyId()).isEqualTo(current.getFamilyId());
+        assertThat(next.getTokenHash()).isEqualTo(TokenDigests.sha256(rotation.refreshToken()));
+        assertThat(rotation.user()).isEqualTo(user);
+        assertThat(rotation.refreshToken()).isNotEqualTo("oldToken");
+    }
+
+    @Test
+    void rotate_ReusedToken_ShouldRevokeTheWholeFamily() {
+        RefreshToken consumed = storedToken("stolenToken", Instant.now().plusSeconds(600));
+        consumed.setUsedAt(Instant.now().minusSeconds(30));
+        when(refreshTokenRepository.findByTokenHash(TokenDigests.sha256("stolenToken"))).thenReturn(Optional.of(consumed));
+
+        InvalidTokenException thrown = assertThrows(InvalidTokenException.class,
+                () -> refreshTokenService.rotate("stolenToken"));
+
+        assertThat(thrown.getMessage()).isEqualTo("Invalid or expired refresh token.");
+        verify(refreshTokenRepository).revokeFamily(eq(consumed.getFamilyId()), any(Instant.class));
+        verify(refreshTokenRepository, never()).save(any(RefreshToken.class));
+    }
+
+    @Test
+    void rotate_TokenConsumedConcurrently_ShouldRevokeTheWholeFamily() {
+        RefreshToken current = storedToken("racedToken", Instant.now().plusSeconds(600));
+        when(refreshTokenRepository.findByTokenHash(TokenDigests.sha256("racedToken"))).thenReturn(Optional.of(current));
+        // Read before the other rotation committed, so it still looks unused.
+        when(refreshTokenRepository.markUsed(eq(current.getId()), any(Instant.class))).thenReturn(0);
+
+        assertThrows(InvalidTokenException.class, () -> refreshTokenService.rotate("racedToken"));
+
+        verify(refreshTokenRepository).revokeFamily(eq(current.getFamilyId()), any(Instant.class));
+        verify(refreshTokenRepository, never()).save(any(RefreshToken.class));
+    }
+
+    @Test
+    void rotate_ExpiredToken_ShouldFail() {
+        RefreshToken expired = storedToken("expiredToken", Instant.now().minusSeconds(1));
+        when(refreshTokenRepository.findByTokenHash(TokenDigests.sha256("expiredToken"))).thenReturn(Optional.of(expired));
+
+        assertThrows(InvalidTokenException.class, () -> refreshTokenService.rotate("expiredToken"));
+
+        verify(refreshTokenRepository, never()).markUsed(any(), any());
+        verify(refreshTokenRepository, never()).revokeFamily(any(), any());
+    }
+
+    @Test
+    void rotate_UnknownToken_ShouldFail() {
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.empty());
+
+        assertThrows(InvalidTokenException.class, () -> refreshTokenService.rotate("unknown"));
+    }
+
+    private RefreshToken storedToken(String rawToken, Instant expiresAt) {
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(TokenDigests.sha256(rawToken));
+        token.setFamilyId(UUID.randomUUID());
+        token.setUser(user);
+        token.setCreatedAt(Instant.now().minusSeconds(60));
+        token.setExpiresAt(expiresAt);
+        return token;
+    }
+}
@@ -0,0 +1,182 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.simo.learnspringboot.learnspringboot.config.EmailProperties;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class SmtpTransportPoolTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    // Messages are built on their own session so getSession() on the sender is only called to open connections.
+    private final Session messageSession = Session.getInstance(new Properties());
+
+    private JavaMailSenderImpl mailSender;
+    private EmailProperties properties;
+    private SmtpTransportPool pool;
+
+    @BeforeEach
+    void setUp() {
+        mailSender = spy(new JavaMailSenderImpl());
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        properties = new EmailProperties();
+        pool = new SmtpTransportPool(mailSender, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.destroy();
+    }
+
+    @Test
+    void shouldSendConsecutiveBatchesOverOneSession() throws Exception {
+        assertThat(pool.send(messages(3))).isEmpty();
+        assertThat(pool.send(messages(2))).isEmpty();
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(5);
+        assertThat(pool.idleCount()).isEqualTo(1);
+        verify(mailSender, times(1)).getSession();
+    }
+
+    @Test
+    void shouldReportRefusedMessageAndKeepSendingTheRest() throws Exception {
+        MimeMessage noRecipient = new MimeMessage(messageSession);
+        noRecipient.setFrom("no-reply@example.com");
+        noRecipient.setText("nobody");
+        List<MimeMessage> batch = List.of(message(0), noRecipient, message(2));
+
+        Map<MimeMessage, Exception> failures = pool.send(batch);
+
+        assertThat(failures).containsOnlyKeys(noRecipient);
+        assertThat(greenMail.getReceivedMessages()).hasSize(2);
+    }
+
+    @Test
+    void shouldReplaceSessionDroppedByTheServer() throws Exception {
+        assertThat(pool.send(messages(1))).isEmpty();
+
+        greenMail.reset();
+
+        assertThat(pool.send(messages(1))).isEmpty();
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+    }
+
+    @Test
+    void shouldCloseTheReconnectedSessionWhenTheResendFails() throws Exception {
+        Session mailSession = mock(Session.class);
+        Transport dropped = mock(Transport.class);
+        Transport reconnected = mock(Transport.class);
+        when(mailSender.getSession()).thenReturn(mailSession);
+        when(mailSession.getTransport(anyString())).thenReturn(dropped, reconnected);
+        doThrow(new MessagingException("connection reset")).when(dropped).sendMessage(any(), any());
+        doThrow(new MessagingException("connection reset")).when(reconnected).sendMessage(any(), any());
+        List<MimeMessage> batch = messages(2);
+
+        assertThat(pool.send(batch)).containsOnlyKeys(batch);
+
+        verify(dropped).close();
+        verify(reconnected).close();
+        // The second message is not tried over the dead session.
+        verify(reconnected, times(1)).sendMessage(any(), any());
+        assertThat(pool.idleCount()).isZero();
+    }
+
+    @Test
+    void shouldFailTheRestOfTheBatchWhenReconnectingFails() throws Exception {
+        Session mailSession = mock(Session.class);
+        Transport dropped = mock(Transport.class);
+        Transport unreachable = mock(Transport.class);
+        when(mailSender.getSession()).thenReturn(mailSession);
+        when(mailSession.getTransport(anyString())).thenReturn(dropped, unreachable);
+        // What Angus throws for a transport that already knows it is closed.
+        doThrow(new IllegalStateException("Not connected")).when(dropped).sendMessage(any(), any());
+        MessagingException refused = new MessagingException("connection refused");
+        doThrow(refused).when(unreachable).connect(any(), anyInt(), any(), any());
+        List<MimeMessage> batch = messages(2);
+
+        Map<MimeMessage, Exception> failures = pool.send(batch);
+
+        assertThat(failures).containsOnlyKeys(batch);
+        assertThat(failures.values()).containsOnly(refused);
+        verify(dropped, times(1)).sendMessage(any(), any());
+        verify(unreachable, never()).sendMessage(any(), any());
+        assertThat(pool.idleCount()).isZero();
+    }
+
+    @Test
+    void shouldKeepTheReconnectedSessionWhenOnlyTheResentMessageIsRefused() throws Exception {
+        Session mailSession = mock(Session.class);
+        Transport dropped = mock(Transport.class);
+        Transport reconnected = mock(Transport.class);
+        when(mailSender.getSession()).thenReturn(mailSession);
+        when(mailSession.getTransport(anyString())).thenReturn(dropped, reconnected);
+        doThrow(new MessagingException("connection reset")).when(dropped).sendMessage(any(), any());
+        MimeMessage refused = message(0);
+        MimeMessage next = message(1);
+        doThrow(new MessagingException("mailbox unavailable")).when(reconnected).sendMessage(eq(refused), any());
+        when(reconnected.isConnected()).thenReturn(true);
+
+        assertThat(pool.send(List.of(refused, next))).containsOnlyKeys(refused);
+
+        verify(reconnected).sendMessage(eq(next), any());
+        verify(reconnected, never()).close();
+        assertThat(pool.idleCount()).isOne();
+    }
+
+    @Test
+    void shouldFailWholeBatchWhenServerIsUnreachable() throws Exception {
+        mailSender.setPort(1);
+        List<MimeMessage> batch = messages(2);
+
+        assertThat(pool.send(batch)).containsOnlyKeys(batch);
+        assertThat(pool.idleCount()).isZero();
+    }
+
+    @Test
+    void shouldCloseIdleSessions() throws Exception {
+        properties.getSmtp().setIdleTimeout(Duration.ZERO);
+        pool = new SmtpTransportPool(mailSender, properties);
+        pool.send(messages(1));
+
+        pool.evictIdle();
+
+        assertThat(pool.idleCount()).isZero();
+    }
+
+    private List<MimeMessage> messages(int count) {
+        return IntStream.range(0, count).mapToObj(this::message).toList();
+    }
+
+    private MimeMessage message(int i) {
+        try {
+            MimeMessage message = new MimeMessage(messageSession);
+            message.setFrom("no-reply@example.com");
+            message.setRecipients(MimeMessage.RecipientType.TO, "user" + i + "@example.com");
+            message.setSubject("Batch " + i);
+            message.setText("Hello " + i);
+            return message;
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import com.simo.learnspringboot.learnspringboot.config.SweeperProperties;
+import com.simo.learnspringboot.learnspringboot.model.OneTimeToken;
+import com.simo.learnspringboot.learnspringboot.model.RefreshToken;
+import com.simo.learnspringboot.learnspringboot.model.TokenType;
+import com.simo.learnspringboot.learnspringboot.model.User;
+import com.simo.learnspringboot.learnspringboot.model.UserChangedEvent;
+import com.simo.learnspringboot.learnspringboot.repository.OneTimeTokenRepository;
+import com.simo.learnspringboot.learnspringboot.repository.RefreshTokenRepository;
+import com.simo.learnspringboot.learnspringboot.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+// Not rolled back: the sweeper commits a transaction per chunk.
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StaleDataSweeperTest {
+
+    @Autowired
+    private OneTimeTokenRepository oneTimeTokenRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SweeperProperties properties = new SweeperProperties();
+
+    @BeforeEach
+    void setUp() {
+        properties.setChunkSize(2);
+        properties.setPause(Duration.ZERO);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        refreshTokenRepository.deleteAll();
+        oneTimeTokenRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void shouldDeleteExpiredTokensInChunks() {
+        Instant now = Instant.now();
+        User user = save(user("tokens@example.com", true));
+        for (int i = 0; i < 5; i++) {
+            save(token(user, now.minusSeconds(i + 1)));
+        }
+        OneTimeToken valid = save(token(user, now.plusSeconds(60)));
+
+        int deleted = sweeperAt(now).sweepExpiredTokens();
+
+        assertThat(deleted).isEqualTo(5);
+        assertThat(oneTimeTokenRepository.findAll()).extracting(OneTimeToken::getId).containsExactly(valid.getId());
+        assertThat(meterRegistry.get("sweeper.rows").tag("kind", "expired-tokens").counter().count()).isEqualTo(5);
+        // Two full chunks, then the partial one that shows nothing is left.
+        assertThat(meterRegistry.get("sweeper.chunk").tag("kind", "expired-tokens").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldDeleteStaleUnverifiedAccountsWithTheirTokens() {
+        User stale = save(user("stale@example.com", false));
+        User otherStale = save(user("other-stale@example.com", false));
+        User verified = save(user("verified@example.com", true));
+        save(token(stale, Instant.now().plusSeconds(60)));
+        save(refreshToken(otherStale));
+        Instant now = Instant.now().plus(properties.getUnverifiedAccountTtl()).plusSeconds(1);
+
+        int deleted = sweeperAt(now).sweepUnverifiedUsers();
+
+        assertThat(deleted).isEqualTo(2);
+        assertThat(userRepository.findAll()).extracting(User::getEmail).containsExactly(verified.getEmail());
+        assertThat(oneTimeTokenRepository.count()).isZero();
+        assertThat(refreshTokenRepository.count()).isZero();
+        verify(eventPublisher).publishEvent(new UserChangedEvent("stale@example.com"));
+        verify(eventPublisher).publishEvent(new UserChangedEvent("other-stale@example.com"));
+        assertThat(meterRegistry.get("sweeper.rows").tag("kind", "unverified-users").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldKeepUnverifiedAccountsYoungerThanTheTtl() {
+        save(user("recent@example.com", false));
+        Instant now = Instant.now().plus(properties.getUnverifiedAccountTtl()).minusSeconds(60);
+
+        assertThat(sweeperAt(now).sweepUnverifiedUsers()).isZero();
+        assertThat(userRepository.count()).isEqualTo(1);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void shouldNotDeleteAnAccountVerifiedWhileItIsSwept() throws Exception {
+        User user = save(user("verifying@example.com", false));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicReference<Future<?>> verification = new AtomicReference<>();
+        // The account gets verified right after the sweep picked it.
+        UserRepository racingRepository = mock(UserRepository.class, delegatesTo(userRepository));
+        doAnswer(invocation -> {
+            List<User> picked = userRepository.findAllByVerifiedFalseAndCreatedAtBefore(invocation.getArgument(0),
+                    invocation.getArgument(1));
+            verification.set(executor.submit(() -> new TransactionTemplate(transactionManager)
+                    .executeWithoutResult(status -> userRepository.findById(user.getId()).orElseThrow()
+                            .setVerified(true))));
+            try {
+                verification.get().get(300, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Held up by the sweep's lock.
+            }
+            return picked;
+        }).when(racingRepository).findAllByVerifiedFalseAndCreatedAtBefore(any(), any());
+        StaleDataSweeper sweeper = new StaleDataSweeper(oneTimeTokenRepository, refreshTokenRepository,
+                racingRepository, eventPublisher, transactionManager, meterRegistry, properties,
+                Clock.fixed(Instant.now().plus(properties.getUnverifiedAccountTtl()).plusSeconds(1), ZoneOffset.UTC));
+
+        boolean verified;
+        try {
+            sweeper.sweepUnverifiedUsers();
+            try {
+                verification.get().get();
+                verified = true;
+            } catch (ExecutionException e) {
+                verified = false;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Either the verification won and the account stays, or the sweep won and the verification failed.
+        assertThat(userRepository.findById(user.getId()).isPresent()).isEqualTo(verified);
+        if (verified) {
+            verifyNoInteractions(eventPublisher);
+        } else {
+            verify(eventPublisher).publishEvent(new UserChangedEvent("verifying@example.com"));
+        }
+    }
+
+    @Test
+    void shouldDoNothingWhenDisabled() {
+        User user = save(user("disabled@example.com", false));
+        save(token(user, Instant.now().minusSeconds(60)));
+        properties.setEnabled(false);
+
+        sweeperAt(Instant.now().plus(properties.getUnverifiedAccountTtl()).plusSeconds(1)).sweep();
+
+        assertThat(userRepository.count()).isEqualTo(1);
+        assertThat(oneTimeTokenRepository.count()).isEqualTo(1);
+    }
+
+    private StaleDataSweeper sweeperAt(Instant now) {
+        return new StaleDataSweeper(oneTimeTokenRepository, refreshTokenRepository, userRepository, eventPublisher,
+                transactionManager, meterRegistry, properties, Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private User save(User user) {
+        return userRepository.save(user);
+    }
+
+    private OneTimeToken save(OneTimeToken token) {
+        return oneTimeTokenRepository.save(token);
+    }
+
+    private void save(RefreshToken token) {
+        refreshTokenRepository.save(token);
+    }
+
+    private static User user(String email, boolean verified) {
+        User user = new User();
+        user.setName("Sweep");
+        user.setEmail(email);
+        user.setPassword("hash");
+        user.setRole("ROLE_USER");
+        user.setVerified(verified);
+        return user;
+    }
+
+    private static OneTimeToken token(User user, Instant expiresAt) {
+        OneTimeToken token = new OneTimeToken();
+        token.setTokenHash(UUID.randomUUID().toString());
+        token.setType(TokenType.EMAIL_VERIFICATION);
+        token.setUser(user);
+        token.setExpiresAt(expiresAt);
+        return token;
+    }
+
+    private static RefreshToken refreshToken(User user) {
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(UUID.randomUUID().toString());
+        token.setFamilyId(UUID.randomUUID());
+        token.setUser(user);
+        token.setCreatedAt(Instant.now());
+        token.setExpiresAt(Instant.now().plusSeconds(60));
+        return token;
+    }
+}
@@ -0,0 +1,82 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.InvalidTokenException;
+import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.UserNotFoundException;
+import com.simo.learnspringboot.learnspringboot.model.User;
+import com.simo.learnspringboot.learnspringboot.repository.UserRepository;
+import com.simo.learnspringboot.learnspringboot.security.JwtUtil;
+import com.simo.learnspringboot.learnspringboot.security.TokenClaims;
+import com.simo.learnspringboot.learnspringboot.security.TokenRevocationList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    @Mock
+    private TokenRevocationList revocationList;
+    @Mock
+    private RefreshTokenService refreshTokenService;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @InjectMocks
+    private TokenRevocationService tokenRevocationService;
+
+    @Test
+    void revokeToken_ValidToken_ShouldRevokeItsJtiUntilExpiry() {
+        Instant expiresAt = Instant.now().plusSeconds(600);
+        TokenClaims claims = new TokenClaims("alice@example.com", Instant.now(), expiresAt, "ROLE_USER", true, "jti-1");
+        when(jwtUtil.verifyToken("token")).thenReturn(Optional.of(claims));
+
+        String message = tokenRevocationService.revokeToken("token");
+
+        assertThat(message).isEqualTo("Token has been revoked.");
+        verify(revocationList).revoke("jti-1", expiresAt);
+    }
+
+    @Test
+    void revokeToken_InvalidToken_ShouldThrow() {
+        when(jwtUtil.verifyToken("expired")).thenReturn(Optional.empty());
+
+        assertThrows(InvalidTokenException.class, () -> tokenRevocationService.revokeToken("expired"));
+
+        verifyNoInteractions(revocationList);
+    }
+
+    @Test
+    void revokeAllForUser_ShouldRevokeAccessAndRefreshTokens() {
+        User user = new User();
+        user.setEmail("alice@example.com");
+        when(userRepository.findByEmail("alice@example.com")).thenReturn(Optional.of(user));
+
+        String message = tokenRevocationService.revokeAllForUser("alice@example.com");
+
+        assertThat(message).isEqualTo("All tokens of alice@example.com have been revoked.");
+        verify(refreshTokenService).revokeAll(user);
+        verify(revocationList).revokeAllIssuedBefore("alice@example.com");
+    }
+
+    @Test
+    void revokeAllForUser_UnknownUser_ShouldThrow() {
+        when(userRepository.findByEmail("ghost@example.com")).thenReturn(Optional.empty());
+
+        UserNotFoundException thrown = assertThrows(UserNotFoundException.class,
+                () -> tokenRevocationService.revokeAllForUser("ghost@example.com"));
+
+        assertThat(thrown.getMessage()).isEqualTo("User not found: ghost@example.com");
+        verifyNoInteractions(revocationList, refreshTokenService);
+    }
+}
@@ -0,0 +1,193 @@
+package com.simo.learnspringboot.learnspringboot.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simo.learnspringboot.learnspringboot.config.OneTimeTokenProperties;
+import com.simo.learnspringboot.learnspringboot.config.UserImportProperties;
+import com.simo.learnspringboot.learnspringboot.dto.UserImportReportDto;
+import com.simo.learnspringboot.learnspringboot.dto.UserImportReportDto.RowError;
+import com.simo.learnspringboot.learnspringboot.exception_handler.exceptions.InvalidImportException;
+import com.simo.learnspringboot.learnspringboot.model.OneTimeToken;
+import com.simo.learnspringboot.learnspringboot.model.OutboxEmail;
+import com.simo.learnspringboot.learnspringboot.model.TokenType;
+import com.simo.learnspringboot.learnspringboot.model.User;
+import com.simo.learnspringboot.learnspringboot.repository.OneTimeTokenRepository;
+import com.simo.learnspringboot.learnspringboot.repository.OutboxEmailRepository;
+import com.simo.learnspringboot.learnspringboot.repository.UserRepository;
+import com.simo.learnspringboot.learnspringboot.security.TokenDigests;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Not rolled back: the import commits its own chunks, so every test uses emails of its own.
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({UserImportService.class, EmailOutbox.class, OneTimeTokenService.class, UserImportServiceTest.Config.class})
+class UserImportServiceTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        PasswordEncoder passwordEncoder() {
+            return new BCryptPasswordEncoder(4);
+        }
+
+        @Bean
+        LocalValidatorFactoryBean validator() {
+            return new LocalValidatorFactoryBean();
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+
+        @Bean
+        OneTimeTokenProperties oneTimeTokenProperties() {
+            return new OneTimeTokenProperties();
+        }
+
+        @Bean
+        UserImportProperties userImportProperties() {
+            UserImportProperties properties = new UserImportProperties();
+            // Small chunks so a few rows already span several transactions.
+            properties.setChunkSize(2);
+            properties.setHashingThreads(2);
+            return properties;
+        }
+    }
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @Autowired
+    private OneTimeTokenRepository oneTimeTokenRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    // Other contexts share the database; their dispatchers must not find these emails.
+    @AfterEach
+    void clearOutbox() {
+        outboxEmailRepository.deleteAll();
+    }
+
+    @Test
+    void shouldImportValidRowsAndQueueTheirVerificationEmails() {
+        UserImportReportDto report = importNdjson("""
+                {"name":"Ada","email":"import-ada@example.com","password":"Password@123"}
+                {"name":"Bob","email":"import-bob@example.com","password":"Password@456"}
+                {"name":"Cy","email":"import-cy@example.com","password":"Password@789"}
+                """);
+
+        assertThat(report.rows()).isEqualTo(3);
+        assertThat(report.imported()).isEqualTo(3);
+        assertThat(report.errors()).isEmpty();
+
+        User ada = userRepository.findByEmail("import-ada@example.com").orElseThrow();
+        assertThat(ada.getName()).isEqualTo("Ada");
+        assertThat(ada.getRole()).isEqualTo("ROLE_USER");
+        assertThat(ada.isVerified()).isFalse();
+        assertThat(passwordEncoder.matches("Password@123", ada.getPassword())).isTrue();
+        OutboxEmail email = outboxEmailRepository.findAll().stream()
+                .filter(outboxEmail -> outboxEmail.getRecipient().equals("import-ada@example.com"))
+                .findFirst().orElseThrow();
+        OneTimeToken token = oneTimeTokenRepository
+                .findByTokenHashAndType(TokenDigests.sha256(email.getToken()), TokenType.EMAIL_VERIFICATION)
+                .orElseThrow();
+        assertThat(token.getUser().getId()).isEqualTo(ada.getId());
+    }
+
+    @Test
+    void shouldReportBadRowsWithoutAbortingTheImport() {
+        importNdjson("""
+                {"name":"Existing","email":"import-existing@example.com","password":"Password@123"}
+                """);
+
+        UserImportReportDto report = importNdjson("""
+                {"name":"Ok","email":"import-ok@example.com","password":"Password@123"}
+                {"name":"","email":"not-an-email","password":"weak"}
+
+                {"name":"Again","email":"import-ok@example.com","password":"Password@123"}
+                {"name":"Existing","email":"import-existing@example.com","password":"Password@123"}
+                {not json
+                {"name":"Last","email":"import-last@example.com","password":"Password@123"}
+                """);
+
+        assertThat(report.rows()).isEqualTo(6);
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(report.errors()).extracting(RowError::line).containsExactly(2, 4, 5, 6);
+        // Same group sequence as /register: later checks only run once the earlier ones pass.
+        assertThat(report.errors().get(0).messages()).containsExactly("name: name is required");
+        assertThat(report.errors().get(1).messages()).containsExactly(UserImportService.DUPLICATE_IN_IMPORT);
+        assertThat(report.errors().get(2).email()).isEqualTo("import-existing@example.com");
+        assertThat(report.errors().get(2).messages()).containsExactly(UserImportService.EMAIL_IN_USE);
+        assertThat(report.errors().get(3).email()).isNull();
+        assertThat(report.errors().get(3).messages()).containsExactly("row is not valid JSON");
+        assertThat(userRepository.findByEmail("import-last@example.com")).isPresent();
+        assertThat(userRepository.findByEmail("import-existing@example.com").orElseThrow().getName()).isEqualTo("Existing");
+    }
+
+    @Test
+    void shouldImportCsvInAnyColumnOrder() {
+        UserImportReportDto report = importCsv("""
+                email,password,name
+                import-csv@example.com,Password@123,"Lovelace, Ada"
+                import-csv-short@example.com,Password@123
+                """);
+
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(report.errors()).singleElement().satisfies(error -> {
+            assertThat(error.line()).isEqualTo(3);
+            assertThat(error.messages()).containsExactly("expected 3 columns but found 2");
+        });
+        assertThat(userRepository.findByEmail("import-csv@example.com").orElseThrow().getName())
+                .isEqualTo("Lovelace, Ada");
+    }
+
+    @Test
+    void shouldRejectCsvWithoutTheRequiredColumns() {
+        assertThatThrownBy(() -> importCsv("email,name\nimport-nopass@example.com,Nope\n"))
+                .isInstanceOf(InvalidImportException.class);
+        assertThat(userRepository.findByEmail("import-nopass@example.com")).isEmpty();
+    }
+
+    @Test
+    void shouldSplitQuotedCsvFields() {
+        assertThat(UserImportService.splitCsv("a,\"b,c\",\"say \"\"hi\"\"\",\r"))
+                .containsExactly("a", "b,c", "say \"hi\"", "");
+    }
+
+    private UserImportReportDto importNdjson(String body) {
+        return userImportService.importUsers(stream(body), UserImportService.Format.NDJSON);
+    }
+
+    private UserImportReportDto importCsv(String body) {
+        return userImportService.importUsers(stream(body), UserImportService.Format.CSV);
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}